@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Сравнивает native-образ с JVM-сборкой: время до первого успешного GET /films/popular
+# и RSS процесса после прогрева. Завершается с ошибкой, если native не быстрее и не легче.
+# Нужен локально установленный GraalVM (GRAALVM_HOME или JAVA_HOME), сеть не требуется.
+# Использование: scripts/native-startup-check.sh [число прогонов]
+set -euo pipefail
+
+RUNS=${1:-3}
+PORT=${PORT:-18081}
+WARMUP_REQUESTS=${WARMUP_REQUESTS:-200}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cd "$ROOT"
+
+mvn -B -o -q clean package -DskipTests
+cp target/filmorate-0.0.1-SNAPSHOT.jar "$WORK/jvm.jar"
+mvn -B -o -q -Pnative native:compile -DskipTests
+cp target/filmorate "$WORK/filmorate"
+
+now_ms() {
+    date +%s%3N
+}
+
+# Печатает "<мс до первого ответа> <RSS в КБ после прогрева>"
+measure() {
+    local start pid elapsed rss
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > "$WORK/app.log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/films/popular" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Приложение завершилось, см. лог:" >&2
+            cat "$WORK/app.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_ms) - start ))
+    for _ in $(seq "$WARMUP_REQUESTS"); do
+        curl -sf "http://localhost:$PORT/films/popular" > /dev/null
+    done
+    rss=$(awk '/^VmRSS:/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed $rss"
+}
+
+# Печатает "<лучшее время, мс> <наибольший RSS, КБ>"
+best_of() {
+    local best=0 peak=0 elapsed rss
+    for _ in $(seq "$RUNS"); do
+        read -r elapsed rss < <(measure "$@")
+        if [ "$best" -eq 0 ] || [ "$elapsed" -lt "$best" ]; then
+            best=$elapsed
+        fi
+        if [ "$rss" -gt "$peak" ]; then
+            peak=$rss
+        fi
+    done
+    echo "$best $peak"
+}
+
+read -r jvm_ms jvm_rss < <(best_of java -jar "$WORK/jvm.jar")
+read -r native_ms native_rss < <(best_of "$WORK/filmorate")
+
+printf '%-7s старт %6d ms   RSS %7d KB\n' jvm "$jvm_ms" "$jvm_rss" native "$native_ms" "$native_rss"
+
+if [ "$native_ms" -ge "$jvm_ms" ] || [ "$native_rss" -ge "$jvm_rss" ]; then
+    echo "native-образ не выигрывает у JVM по времени старта или памяти" >&2
+    exit 1
+fi
+echo "OK: старт быстрее в $(( jvm_ms / (native_ms > 0 ? native_ms : 1) )) раз, RSS меньше на $(( (jvm_rss - native_rss) / 1024 )) MB"
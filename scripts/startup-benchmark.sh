@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Время от запуска JVM до первого успешного GET /films/popular:
+# обычная сборка против профиля fast-start (AOT + AppCDS + lazy init).
+# Использование: scripts/startup-benchmark.sh [число прогонов]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cd "$ROOT"
+
+mvn -B -q clean package -DskipTests
+cp target/filmorate-0.0.1-SNAPSHOT.jar "$WORK/default.jar"
+
+# Архив CDS привязан к пути jar, с которым он записан, поэтому fast-start запускается прямо из target
+mvn -B -q clean package -DskipTests -Pfast-start
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local start pid elapsed
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > "$WORK/app.log" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/films/popular" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Приложение завершилось, см. лог:" >&2
+            cat "$WORK/app.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed"
+}
+
+report() {
+    local name=$1
+    shift
+    local total=0 best=0 value
+    for _ in $(seq "$RUNS"); do
+        value=$(measure "$@")
+        total=$(( total + value ))
+        if [ "$best" -eq 0 ] || [ "$value" -lt "$best" ]; then
+            best=$value
+        fi
+    done
+    printf '%-10s avg %6d ms   best %6d ms\n' "$name" $(( total / RUNS )) "$best"
+}
+
+report default java -jar "$WORK/default.jar"
+report fast-start java -XX:SharedArchiveFile="$ROOT/target/filmorate.jsa" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=faststart -jar "$ROOT/target/filmorate-0.0.1-SNAPSHOT.jar"
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.async;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.async")
+public class AsyncProperties {
+    private boolean virtualThreads = true;
+    private int poolSize = 64;
+    // Сколько ID читается из хранилища одной задачей при загрузке списков
+    private int batchSize = 256;
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.async;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Пул для обращений к хранилищу из асинхронных методов сервисов. Потоки Tomcat освобождаются
+ * сразу после возврата CompletableFuture, а ожидание медленного хранилища уходит сюда.
+ * Не объявлен как бин Executor, чтобы не вытеснять applicationTaskExecutor Spring Boot.
+ */
+@Component
+public class StorageExecutor {
+    private final ExecutorService executor;
+    private final int batchSize;
+
+    public StorageExecutor(AsyncProperties properties) {
+        this.batchSize = Math.max(properties.getBatchSize(), 1);
+        this.executor = properties.isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(properties.getPoolSize());
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    public <T> CompletableFuture<List<T>> all(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .toList());
+    }
+
+    // Одна задача на порцию из batchSize ID, а не на каждый ID: число задач не растёт с длиной списка
+    public <T> CompletableFuture<List<T>> supplyBatched(List<Long> ids, Function<List<Long>, List<T>> loader) {
+        List<CompletableFuture<List<T>>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            batches.add(supply(() -> loader.apply(batch)));
+        }
+        return all(batches).thenApply(results -> results.stream()
+                .flatMap(List::stream)
+                .toList());
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.cascade;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Небольшие каскады выполняются сразу в потоке запроса, крупные ставятся в очередь
+ * и разбираются планировщиком не более чем по batchSize связей за такт.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CascadeCleaner {
+    private final CascadeProperties properties;
+    private final Queue<CascadeTask> pending = new ConcurrentLinkedQueue<>();
+
+    public void submit(CascadeTask task) {
+        long size = task.size();
+        if (size <= properties.getInlineThreshold()) {
+            task.run(Integer.MAX_VALUE);
+            return;
+        }
+        log.info("Очистка связей {} ({} шт.) поставлена в фоновую очередь", task.getName(), size);
+        pending.add(task);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.cascade.cleanup-interval-ms:50}")
+    public void cleanup() {
+        int budget = properties.getBatchSize();
+        while (budget > 0) {
+            CascadeTask task = pending.peek();
+            if (task == null) {
+                return;
+            }
+            budget -= task.run(budget);
+            if (task.isDone()) {
+                pending.poll();
+                log.info("Очистка связей {} завершена", task.getName());
+            }
+        }
+    }
+
+    public int getPendingTasks() {
+        return pending.size();
+    }
+}
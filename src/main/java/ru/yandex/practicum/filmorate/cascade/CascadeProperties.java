@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.cascade;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.cascade")
+public class CascadeProperties {
+    private int inlineThreshold = 1000;
+    private int batchSize = 500;
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.cascade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Очистка связей удалённой сущности: последовательность этапов "массив ID + действие над каждым".
+ * Выполняется порциями, позиция сохраняется между вызовами run.
+ */
+public class CascadeTask {
+    private final String name;
+    private final List<long[]> targets = new ArrayList<>();
+    private final List<LongConsumer> actions = new ArrayList<>();
+    private final Runnable onComplete;
+    private int stage;
+    private int position;
+    private boolean completed;
+
+    public CascadeTask(String name, Runnable onComplete) {
+        this.name = name;
+        this.onComplete = onComplete;
+    }
+
+    public CascadeTask then(long[] ids, LongConsumer action) {
+        targets.add(ids);
+        actions.add(action);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return targets.stream().mapToLong(ids -> ids.length).sum();
+    }
+
+    int run(int budget) {
+        int processed = 0;
+        while (processed < budget && stage < targets.size()) {
+            long[] ids = targets.get(stage);
+            if (position == ids.length) {
+                stage++;
+                position = 0;
+                continue;
+            }
+            actions.get(stage).accept(ids[position++]);
+            processed++;
+        }
+        if (isDone() && !completed) {
+            completed = true;
+            onComplete.run();
+        }
+        return processed;
+    }
+
+    boolean isDone() {
+        while (stage < targets.size() && position == targets.get(stage).length) {
+            stage++;
+            position = 0;
+        }
+        return stage == targets.size();
+    }
+}
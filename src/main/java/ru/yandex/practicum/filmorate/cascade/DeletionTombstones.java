@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.cascade;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Удалённые сущности, связи которых ещё не вычищены. Чтения отфильтровывают эти ID,
+ * поэтому удаление видно сразу, даже если очистка большого каскада идёт в фоне.
+ */
+@Component
+public class DeletionTombstones {
+    private final Set<Long> users = ConcurrentHashMap.newKeySet();
+    private final Set<Long> films = ConcurrentHashMap.newKeySet();
+
+    public void markUser(Long id) {
+        users.add(id);
+    }
+
+    public boolean isUserDeleted(Long id) {
+        return users.contains(id);
+    }
+
+    public void clearUser(Long id) {
+        users.remove(id);
+    }
+
+    public void markFilm(Long id) {
+        films.add(id);
+    }
+
+    public boolean isFilmDeleted(Long id) {
+        return films.contains(id);
+    }
+
+    public void clearFilm(Long id) {
+        films.remove(id);
+    }
+}
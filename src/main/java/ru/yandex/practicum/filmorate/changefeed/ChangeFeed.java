@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцевой буфер последних изменений. Номер события монотонно растёт, а старые события
+ * перезаписываются новыми, поэтому память не зависит от скорости подписчиков.
+ * Номер выдаётся атомарным счётчиком без блокировок. Хранилища получают номер внутри своей
+ * блокировки или compute, поэтому порядок номеров совпадает с порядком изменений одной сущности,
+ * а записывают событие в буфер, когда изменение уже видно чтению: получивший событие подписчик
+ * находит сущность в её новом состоянии.
+ * Номер, выданный, но ещё не записанный в буфер, читатель не пропускает, а дочитывает при следующем вызове.
+ */
+@Component
+public class ChangeFeed {
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public ChangeFeed(ChangeFeedProperties properties) {
+        if (properties.getCapacity() < 1) {
+            throw new IllegalArgumentException("Размер буфера изменений должен быть положительным");
+        }
+        int size = properties.getCapacity() == 1 ? 1 : Integer.highestOneBit(properties.getCapacity() - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void publish(ChangeType type, Long entityId) {
+        publish(type, entityId, null);
+    }
+
+    public void publish(ChangeType type, Long entityId, Long relatedId) {
+        publish(claim(), type, entityId, relatedId);
+    }
+
+    /**
+     * Выдаёт номер следующего события. Событие с этим номером нужно записать через publish(sequence, ...)
+     * без исключений между вызовами: до записи читатели на нём останавливаются.
+     */
+    public long claim() {
+        return lastSequence.incrementAndGet();
+    }
+
+    public void publish(long sequence, ChangeType type, Long entityId) {
+        publish(sequence, type, entityId, null);
+    }
+
+    public void publish(long sequence, ChangeType type, Long entityId, Long relatedId) {
+        ChangeEvent event = ChangeEvent.builder()
+                .sequence(sequence)
+                .type(type)
+                .entityId(entityId)
+                .relatedId(relatedId)
+                .timestamp(Instant.now())
+                .build();
+        int slot = (int) (sequence & mask);
+        // Запоздавшая запись не затирает более новое событие, которое уже заняло слот по кругу
+        while (true) {
+            ChangeEvent current = ring.get(slot);
+            if (current != null && current.getSequence() > sequence) {
+                return;
+            }
+            if (ring.compareAndSet(slot, current, event)) {
+                return;
+            }
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    public long getOldestSequence() {
+        return Math.max(1, lastSequence.get() - mask);
+    }
+
+    public List<ChangeEvent> read(long fromSequence, int limit) {
+        long last = lastSequence.get();
+        List<ChangeEvent> events = new ArrayList<>();
+        for (long sequence = Math.max(fromSequence, 1); sequence <= last && events.size() < limit; sequence++) {
+            ChangeEvent event = ring.get((int) (sequence & mask));
+            if (event == null || event.getSequence() != sequence) {
+                break;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+}
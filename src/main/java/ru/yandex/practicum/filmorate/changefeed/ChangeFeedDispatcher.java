@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Планировщик только будит отправителей и никогда не пишет в сокет сам. Каждый подписчик получает события
+ * в собственном виртуальном потоке, поэтому медленный клиент задерживает только себя, а не остальных
+ * подписчиков и не другие задачи @Scheduled. Очередь подписчика — это отрезок кольцевого буфера от его
+ * курсора до последнего события; если отставание превышает max-lag, подписчик отключается
+ * и может переподключиться с Last-Event-ID.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedDispatcher {
+    private final ChangeFeed changeFeed;
+    private final ChangeFeedProperties properties;
+    private final Queue<Subscription> subscriptions = new ConcurrentLinkedQueue<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SseEmitter subscribe(Long fromSequence) {
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeoutMs());
+        long cursor = fromSequence != null ? fromSequence : changeFeed.getLastSequence() + 1;
+        Subscription subscription = new Subscription(emitter, cursor);
+        emitter.onCompletion(() -> close(subscription));
+        emitter.onTimeout(() -> close(subscription));
+        emitter.onError(e -> close(subscription));
+        subscriptions.add(subscription);
+        log.info("Новый подписчик ленты изменений, начиная с {}", cursor);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.change-feed.dispatch-interval-ms:100}")
+    public void dispatch() {
+        long last = changeFeed.getLastSequence();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.cursor > last) {
+                continue;
+            }
+            // Отправка всё ещё идёт, а отставание выросло сверх max-lag: клиент не успевает читать
+            if (subscription.sending.get() && last - subscription.cursor >= properties.getMaxLag()) {
+                log.warn("Подписчик ленты изменений отстал на {} событий и отключён", last - subscription.cursor);
+                close(subscription);
+                subscription.emitter.complete();
+                continue;
+            }
+            if (subscription.sending.compareAndSet(false, true)) {
+                senders.execute(() -> drain(subscription));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            boolean more = true;
+            while (more && !subscription.closed) {
+                more = deliver(subscription);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(subscription);
+            subscription.emitter.completeWithError(e);
+        } finally {
+            subscription.sending.set(false);
+        }
+    }
+
+    private void close(Subscription subscription) {
+        subscription.closed = true;
+        subscriptions.remove(subscription);
+    }
+
+    // Возвращает false, когда отправлять больше нечего
+    private boolean deliver(Subscription subscription) throws IOException {
+        long oldest = changeFeed.getOldestSequence();
+        if (subscription.cursor < oldest) {
+            subscription.emitter.send(SseEmitter.event()
+                    .name("gap")
+                    .data(oldest));
+            subscription.cursor = oldest;
+        }
+        List<ChangeEvent> events = changeFeed.read(subscription.cursor, properties.getBatchSize());
+        for (ChangeEvent event : events) {
+            subscription.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getSequence()))
+                    .name(event.getType().name())
+                    .data(event));
+            subscription.cursor = event.getSequence() + 1;
+        }
+        return !events.isEmpty();
+    }
+
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.change-feed")
+public class ChangeFeedProperties {
+    private int capacity = 8192;
+    private int batchSize = 256;
+    private int maxLag = 4096;
+    private long emitterTimeoutMs = 1_800_000;
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import ru.yandex.practicum.filmorate.model.ApiError;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.NetworkSize;
+import ru.yandex.practicum.filmorate.model.PopularCacheStats;
+import ru.yandex.practicum.filmorate.model.Separation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+
+import java.util.List;
+
+/**
+ * Подсказки для native-image. Модели сериализуются Jackson через рефлексию, в том числе ApiError,
+ * который кодируется заранее в ErrorBodies, а не через возвращаемое значение контроллера.
+ * Сборка идёт без репозитория reachability-метаданных, поэтому подсказки для валидации и Logbook заданы здесь.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfig.FilmorateRuntimeHints.class)
+@RegisterReflectionForBinding({Film.class, User.class, ApiError.class, FilmSummary.class, UserSummary.class,
+        ChangeEvent.class, BulkImportResult.class, Separation.class, NetworkSize.class, PopularCacheStats.class,
+        ValidationReport.class})
+public class NativeConfig {
+
+    static class FilmorateRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate Validator читает ограничения с полей, Lombok-конструкторы и билдеры нужны Jackson
+            for (Class<?> type : List.of(Film.class, User.class, ApiError.class)) {
+                hints.reflection().registerType(type,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            for (Class<?> constraint : List.of(NotBlank.class, NotNull.class, Size.class, Email.class,
+                    Pattern.class, Positive.class, PastOrPresent.class)) {
+                hints.reflection().registerType(constraint, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            // Logbook находит фабрики и форматтеры через ServiceLoader
+            hints.resources().registerPattern("META-INF/services/org.zalando.logbook.*");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedDispatcher;
+
+@Slf4j
+@RestController
+@RequestMapping("/changes")
+@Validated
+@RequiredArgsConstructor
+public class ChangeFeedController {
+    private final ChangeFeedDispatcher dispatcher;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) @Positive Long from,
+                                @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("Подписка на ленту изменений: from={}, Last-Event-ID={}", from, lastEventId);
+        if (lastEventId != null) {
+            return dispatcher.subscribe(lastEventId + 1);
+        }
+        return dispatcher.subscribe(from);
+    }
+}
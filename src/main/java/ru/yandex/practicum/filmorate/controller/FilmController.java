@@ -1,18 +1,29 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
-import jakarta.validation.ValidationException;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.PopularCacheStats;
+import ru.yandex.practicum.filmorate.service.BulkService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -20,7 +31,10 @@ import java.util.List;
 @Validated
 @RequiredArgsConstructor
 public class FilmController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final FilmService filmService;
+    private final BulkService bulkService;
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
@@ -30,9 +44,14 @@ public class FilmController {
     }
 
     @PutMapping
-    public Film updateFilm(@Valid @RequestBody Film film) {
+    public ResponseEntity<Film> updateFilm(@Valid @RequestBody Film film,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
         log.debug("Попытка обновления фильма ID: {}", film.getId());
-        return filmService.updateFilm(film);
+        Film updated = filmService.updateFilm(film, EntityTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(updated.getVersion()))
+                .body(updated);
     }
 
     @GetMapping
@@ -41,10 +60,32 @@ public class FilmController {
         return filmService.getAllFilms();
     }
 
+    @GetMapping(params = "view=summary")
+    public List<FilmSummary> getAllFilmSummaries() {
+        log.info("Запрос краткого списка всех фильмов");
+        return filmService.getAllFilmSummaries();
+    }
+
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Long id) {
+    public ResponseEntity<Film> getFilmById(@PathVariable Long id) {
         log.info("Запрос фильма по id: {}", id);
-        return filmService.getFilmById(id);
+        Film film = filmService.getFilmById(id);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(film.getVersion()))
+                .body(film);
+    }
+
+    @GetMapping(value = "/{id}", params = "view=summary")
+    public FilmSummary getFilmSummaryById(@PathVariable Long id) {
+        log.info("Запрос краткой информации о фильме по id: {}", id);
+        return filmService.getFilmSummaryById(id);
+    }
+
+    @GetMapping("/{id}/likes")
+    public List<Long> getLikes(@PathVariable Long id,
+                               @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                               @RequestParam(defaultValue = "100") @Positive int size) {
+        return filmService.getLikes(id, from, size);
     }
 
     @DeleteMapping("/{id}")
@@ -54,23 +95,43 @@ public class FilmController {
 
     @PutMapping("/{id}/like/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void addLike(@PathVariable Long id, @PathVariable Long userId) {
-        try {
-            filmService.addLike(id, userId);
-        } catch (ValidationException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
+    public CompletableFuture<Void> addLike(@PathVariable Long id, @PathVariable Long userId) {
+        return filmService.addLikeAsync(id, userId);
     }
 
     @DeleteMapping("/{filmId}/like/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void removeLike(@PathVariable Long filmId, @PathVariable Long userId) {
-        filmService.removeLike(filmId, userId);
+    public CompletableFuture<Void> removeLike(@PathVariable Long filmId, @PathVariable Long userId) {
+        return filmService.removeLikeAsync(filmId, userId);
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public CompletableFuture<List<Film>> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getPopularFilmsAsync(count);
     }
 
+    @GetMapping(value = "/popular", params = "view=summary")
+    public CompletableFuture<List<FilmSummary>> getPopularFilmSummaries(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getPopularFilmSummariesAsync(count);
+    }
+
+    @GetMapping("/popular/stats")
+    public PopularCacheStats getPopularCacheStats() {
+        return filmService.getPopularCacheStats();
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        log.info("Запрос на массовую загрузку фильмов");
+        return bulkService.importFilms(body);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Запрос на выгрузку фильмов");
+        StreamingResponseBody body = bulkService::exportFilms;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
 }
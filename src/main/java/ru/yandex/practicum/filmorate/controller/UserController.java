@@ -1,15 +1,30 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.NetworkSize;
+import ru.yandex.practicum.filmorate.model.Separation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+import ru.yandex.practicum.filmorate.service.BulkService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -17,8 +32,10 @@ import java.util.*;
 @Validated
 @RequiredArgsConstructor
 public class UserController {
+    private static final String NDJSON = "application/x-ndjson";
 
     private final UserService userService;
+    private final BulkService bulkService;
 
 
     @GetMapping
@@ -27,6 +44,12 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    @GetMapping(params = "view=summary")
+    public List<UserSummary> getAllUserSummaries() {
+        log.info("Запрос краткого списка всех пользователей.");
+        return userService.getAllUserSummaries();
+    }
+
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
     public User addUser(@Valid @RequestBody User user) {
@@ -36,20 +59,34 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) {
+    public ResponseEntity<User> getUserById(@PathVariable Long id) {
         log.info("Получен Http запрос на получение пользователя по id: {}", id);
-        log.debug("Найден пользователь: {}", userService.getUserById(id));
-        return userService.getUserById(id);
+        User user = userService.getUserById(id);
+        log.debug("Найден пользователь: {}", user);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(user.getVersion()))
+                .body(user);
+    }
+
+    @GetMapping(value = "/{id}", params = "view=summary")
+    public UserSummary getUserSummaryById(@PathVariable Long id) {
+        log.info("Получен Http запрос на получение краткой информации о пользователе по id: {}", id);
+        return userService.getUserSummaryById(id);
     }
 
     @PutMapping
-    public User updateUser(@Valid @RequestBody User user) {
+    public ResponseEntity<User> updateUser(@Valid @RequestBody User user,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
         log.debug("Попытка обновления пользователя: {}", user);
-        log.info("Пользователь обновлён. ID: {}", user.getId());
-        return userService.updateUser(user);
+        User updated = userService.updateUser(user, EntityTags.parseIfMatch(ifMatch));
+        log.info("Пользователь обновлён. ID: {}", updated.getId());
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(updated.getVersion()))
+                .body(updated);
     }
 
-    @DeleteMapping
+    @DeleteMapping("/{id}")
     public void deleteUser(@PathVariable Long id) {
         log.info("Запрос на удаление пользователя с id {}", id);
         userService.deleteUser(id);
@@ -57,23 +94,75 @@ public class UserController {
 
     @PutMapping("/{id}/friends/{friendId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void addFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        userService.addFriend(id, friendId);
+    public CompletableFuture<Void> addFriend(@PathVariable Long id, @PathVariable Long friendId) {
+        return userService.addFriendAsync(id, friendId);
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable Long id) {
-        return userService.getFriends(id);
+    public CompletableFuture<List<User>> getFriends(@PathVariable Long id) {
+        return userService.getFriendsAsync(id);
+    }
+
+    @GetMapping("/{id}/friends/ids")
+    public List<Long> getFriendIds(@PathVariable Long id,
+                                   @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                   @RequestParam(defaultValue = "100") @Positive int size) {
+        return userService.getFriendIds(id, from, size);
+    }
+
+    @GetMapping("/{id}/likes")
+    public List<Long> getLikedFilms(@PathVariable Long id,
+                                   @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                   @RequestParam(defaultValue = "100") @Positive int size) {
+        return userService.getLikedFilms(id, from, size);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public List<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
-        return userService.getCommonFriends(id, otherId);
+    public CompletableFuture<List<User>> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
+        return userService.getCommonFriendsAsync(id, otherId);
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        userService.removeFriend(id, friendId);
+    public CompletableFuture<Void> removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
+        return userService.removeFriendAsync(id, friendId);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public Separation getSeparation(@PathVariable Long id, @PathVariable Long otherId) {
+        return userService.getSeparation(id, otherId);
+    }
+
+    @GetMapping("/{id}/network/size")
+    public NetworkSize getNetworkSize(@PathVariable Long id,
+                                      @RequestParam(defaultValue = "1") @Positive int depth) {
+        return userService.getNetworkSize(id, depth);
+    }
+
+    @PostMapping("/validation")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ValidationReport startValidation() {
+        log.info("Запрос на проверку всех пользователей");
+        return userService.startValidation();
+    }
+
+    @GetMapping("/validation/{jobId}")
+    public ValidationReport getValidation(@PathVariable long jobId) {
+        return userService.getValidation(jobId);
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        log.info("Запрос на массовую загрузку пользователей");
+        return bulkService.importUsers(body);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("Запрос на выгрузку пользователей");
+        StreamingResponseBody body = bulkService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 }
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.counters;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.popular.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CounterReconciler {
+    private final EngagementCounters counters;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final PopularFilmsCache popularFilmsCache;
+    private Map<Long, Long> likeDrifts = Map.of();
+    private Map<Long, Long> friendDrifts = Map.of();
+
+    @Scheduled(fixedDelayString = "${filmorate.counters.reconcile-interval-ms:60000}",
+            initialDelayString = "${filmorate.counters.reconcile-interval-ms:60000}")
+    public synchronized long reconcile() {
+        // Хранилища отдают только размеры наборов: ни фильмы, ни пользователи при сверке не собираются
+        long[] repaired = new long[1];
+        EntityCounters likes = counters.getFilmLikes();
+        Map<Long, Long> likeSuspects = new HashMap<>();
+        filmStorage.forEachLikeCount((id, count) ->
+                repaired[0] += repair(likes, likeDrifts, likeSuspects, id, count));
+        likeDrifts = likeSuspects;
+        repaired[0] += removeOrphans(likes, filmStorage::existsFilm);
+        if (repaired[0] > 0) {
+            // Исправленный счётчик меняет порядок популярных так же, как лайк
+            popularFilmsCache.recordLikeChange();
+        }
+
+        EntityCounters friends = counters.getUserFriends();
+        Map<Long, Long> friendSuspects = new HashMap<>();
+        userStorage.forEachFriendCount((id, count) ->
+                repaired[0] += repair(friends, friendDrifts, friendSuspects, id, count));
+        friendDrifts = friendSuspects;
+        repaired[0] += removeOrphans(friends, userStorage::existsUser);
+
+        if (repaired[0] > 0) {
+            log.warn("Сверка счётчиков: исправлено расхождений {}", repaired[0]);
+        } else {
+            log.debug("Сверка счётчиков: расхождений нет");
+        }
+        return repaired[0];
+    }
+
+    // Сервис меняет множество раньше счётчика, и одна сверка может застать их между этими шагами.
+    // Поэтому исправляется только расхождение той же величины, замеченное две сверки подряд,
+    // а впервые увиденное лишь запоминается. Отсутствующий счётчик равен нулю, и сущность без лайков
+    // или друзей расхождением не считается
+    private int repair(EntityCounters counter, Map<Long, Long> previous, Map<Long, Long> suspects,
+                       Long id, int members) {
+        long drift = members - counter.get(id);
+        if (drift == 0) {
+            return 0;
+        }
+        if (!Long.valueOf(drift).equals(previous.get(id))) {
+            suspects.put(id, drift);
+            return 0;
+        }
+        counter.add(id, drift);
+        return 1;
+    }
+
+    private int removeOrphans(EntityCounters counter, LongPredicate exists) {
+        int removed = 0;
+        for (Long id : counter.ids()) {
+            if (!exists.test(id)) {
+                counter.remove(id);
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.counters;
+
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счётчики лайков фильмов и друзей пользователей. Обновляются сервисами вместе с изменением
+ * множеств, расхождения исправляет {@link CounterReconciler}.
+ */
+@Getter
+@Component
+public class EngagementCounters {
+    private final EntityCounters filmLikes = new EntityCounters();
+    private final EntityCounters userFriends = new EntityCounters();
+}
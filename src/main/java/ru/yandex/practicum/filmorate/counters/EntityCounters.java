@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.counters;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Денормализованные счётчики по ID сущности. Каждый счётчик — отдельный LongAdder,
+ * поэтому частые инкременты одного "горячего" фильма не упираются в один CAS.
+ */
+public class EntityCounters {
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void increment(Long id) {
+        counter(id).increment();
+    }
+
+    public void decrement(Long id) {
+        counter(id).decrement();
+    }
+
+    public void add(Long id, long delta) {
+        counter(id).add(delta);
+    }
+
+    public long get(Long id) {
+        LongAdder counter = counters.get(id);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public void remove(Long id) {
+        counters.remove(id);
+    }
+
+    public Set<Long> ids() {
+        return counters.keySet();
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    // Первые count ID по убыванию значения, при равенстве — по возрастанию ID; O(n log count)
+    public List<Long> top(int count) {
+        PriorityQueue<long[]> heap = new PriorityQueue<>(count + 1, (a, b) -> a[1] != b[1]
+                ? Long.compare(a[1], b[1])
+                : Long.compare(b[0], a[0]));
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            heap.offer(new long[]{entry.getKey(), entry.getValue().sum()});
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        Long[] result = new Long[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll()[0];
+        }
+        return Arrays.asList(result);
+    }
+
+    private LongAdder counter(Long id) {
+        LongAdder counter = counters.get(id);
+        return counter != null ? counter : counters.computeIfAbsent(id, key -> new LongAdder());
+    }
+}
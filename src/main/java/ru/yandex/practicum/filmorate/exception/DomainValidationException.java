@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import jakarta.validation.ValidationException;
+
+public class DomainValidationException extends ValidationException {
+    public DomainValidationException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -3,13 +3,14 @@ package ru.yandex.practicum.filmorate.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+// Промахи по ID — частый и ожидаемый сценарий, поэтому стек не собирается
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class NotFoundException extends RuntimeException {
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public NotFoundException(String message, Long id) {
-        super(String.format("%s с id=%d не найден", message, id));
+        this(message + " с id=" + id + " не найден");
     }
 }
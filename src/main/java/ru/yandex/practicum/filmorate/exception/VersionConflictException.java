@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
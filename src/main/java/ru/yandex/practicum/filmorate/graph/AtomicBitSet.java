@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class AtomicBitSet {
+    private final AtomicLongArray words;
+
+    AtomicBitSet(int size) {
+        this.words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    boolean get(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Возвращает true, если бит был установлен именно этим вызовом.
+     */
+    boolean set(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Неизменяемый граф в формате CSR: соседи вершины v лежат в targets[offsets[v]..offsets[v + 1])
+ * и отсортированы по возрастанию.
+ */
+public final class CsrGraph {
+    static final CsrGraph EMPTY = new CsrGraph(new int[]{0}, new int[0]);
+
+    private final int[] offsets;
+    private final int[] targets;
+
+    CsrGraph(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public static CsrGraph fromEdges(int vertexCount, int[] from, int[] to, int edgeCount) {
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[from[i] + 1]++;
+            offsets[to[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] targets = new int[offsets[vertexCount]];
+        int[] cursor = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < edgeCount; i++) {
+            targets[cursor[from[i]]++] = to[i];
+            targets[cursor[to[i]]++] = from[i];
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            Arrays.sort(targets, offsets[v], offsets[v + 1]);
+        }
+        return new CsrGraph(offsets, targets);
+    }
+
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    public long edgeCount() {
+        return targets.length / 2;
+    }
+
+    // Списки соседей из overrides заменяют базовые целиком
+    static CsrGraph merge(CsrGraph base, Map<Integer, int[]> overrides, int vertexCount) {
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            int[] neighbors = overrides.get(v);
+            offsets[v + 1] = offsets[v] + (neighbors != null ? neighbors.length : base.end(v) - base.start(v));
+        }
+        int[] targets = new int[offsets[vertexCount]];
+        for (int v = 0; v < vertexCount; v++) {
+            int[] neighbors = overrides.get(v);
+            if (neighbors != null) {
+                System.arraycopy(neighbors, 0, targets, offsets[v], neighbors.length);
+            } else {
+                System.arraycopy(base.targets, base.start(v), targets, offsets[v], base.end(v) - base.start(v));
+            }
+        }
+        return new CsrGraph(offsets, targets);
+    }
+
+    int[] neighbors(int v) {
+        return Arrays.copyOfRange(targets, start(v), end(v));
+    }
+
+    int start(int v) {
+        return v < vertexCount() ? offsets[v] : 0;
+    }
+
+    int end(int v) {
+        return v < vertexCount() ? offsets[v + 1] : 0;
+    }
+
+    int target(int i) {
+        return targets[i];
+    }
+
+    boolean hasEdge(int u, int v) {
+        return u < vertexCount() && Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v) >= 0;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Граф дружбы для аналитических запросов. Поверх CSR-снимка хранятся полные списки соседей
+ * изменённых вершин; каждый список неизменяем и заменяется целиком, поэтому чтение идёт без блокировок.
+ * Когда изменений набирается больше порога, их слой замораживается и вливается в новый снимок
+ * в отдельном потоке; готовый снимок подменяется одной volatile-записью.
+ */
+@Slf4j
+@Component
+public class FriendGraph {
+    private final int compactionThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("friend-graph-compaction").daemon().factory());
+    private volatile Layers layers = new Layers(CsrGraph.EMPTY, Map.of(), new ConcurrentHashMap<>());
+    private volatile int vertexCount;
+    private int pendingChanges;
+    private boolean compacting;
+
+    public FriendGraph(GraphProperties properties) {
+        this.compactionThreshold = properties.getCompactionThreshold();
+    }
+
+    public synchronized void addEdge(long userId, long friendId) {
+        int u = vertex(userId);
+        int v = vertex(friendId);
+        if (update(u, v, true) | update(v, u, true)) {
+            vertexCount = Math.max(vertexCount, Math.max(u, v) + 1);
+            changed();
+        }
+    }
+
+    public synchronized void removeEdge(long userId, long friendId) {
+        int u = vertex(userId);
+        int v = vertex(friendId);
+        if (update(u, v, false) | update(v, u, false)) {
+            changed();
+        }
+    }
+
+    // Только для бенчмарка: подставляет заранее построенный снимок вместо пустого
+    synchronized void replaceBase(CsrGraph snapshot) {
+        layers = new Layers(snapshot, Map.of(), new ConcurrentHashMap<>());
+        vertexCount = snapshot.vertexCount();
+        pendingChanges = 0;
+    }
+
+    public GraphView view() {
+        Layers current = layers;
+        return new GraphView(current.base, current.compacting, current.changed, vertexCount);
+    }
+
+    public static int vertex(long userId) {
+        if (userId < 0 || userId >= Integer.MAX_VALUE - 64) {
+            throw new DomainValidationException("ID пользователя вне диапазона графа: " + userId);
+        }
+        return (int) userId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    private boolean update(int u, int v, boolean add) {
+        Layers current = layers;
+        int[] neighbors = current.neighbors(u);
+        int position = Arrays.binarySearch(neighbors, v);
+        if (add == position >= 0) {
+            return false;
+        }
+        int[] updated;
+        if (add) {
+            int insertAt = -position - 1;
+            updated = new int[neighbors.length + 1];
+            System.arraycopy(neighbors, 0, updated, 0, insertAt);
+            updated[insertAt] = v;
+            System.arraycopy(neighbors, insertAt, updated, insertAt + 1, neighbors.length - insertAt);
+        } else {
+            updated = new int[neighbors.length - 1];
+            System.arraycopy(neighbors, 0, updated, 0, position);
+            System.arraycopy(neighbors, position + 1, updated, position, updated.length - position);
+        }
+        current.changed.put(u, updated);
+        return true;
+    }
+
+    // Вызывается под монитором; сам снимок строится вне его, писатели продолжают работать в новом слое
+    private void changed() {
+        if (++pendingChanges < compactionThreshold || compacting) {
+            return;
+        }
+        compacting = true;
+        pendingChanges = 0;
+        Layers frozen = new Layers(layers.base, layers.changed, new ConcurrentHashMap<>());
+        layers = frozen;
+        int vertices = vertexCount;
+        compactor.execute(() -> compact(frozen, vertices));
+    }
+
+    private void compact(Layers frozen, int vertices) {
+        long start = System.nanoTime();
+        try {
+            CsrGraph merged = CsrGraph.merge(frozen.base, frozen.compacting, vertices);
+            synchronized (this) {
+                layers = new Layers(merged, Map.of(), layers.changed);
+                compacting = false;
+            }
+            log.debug("Граф дружбы уплотнён: {} вершин, {} рёбер за {} мс", merged.vertexCount(),
+                    merged.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Замороженный слой возвращается к изменениям, чтобы следующая попытка уплотнения его учла
+            synchronized (this) {
+                ConcurrentHashMap<Integer, int[]> changed = new ConcurrentHashMap<>(frozen.compacting);
+                changed.putAll(layers.changed);
+                layers = new Layers(frozen.base, Map.of(), changed);
+                compacting = false;
+            }
+            log.error("Не удалось уплотнить граф дружбы", e);
+        }
+    }
+
+    private record Layers(CsrGraph base, Map<Integer, int[]> compacting, ConcurrentHashMap<Integer, int[]> changed) {
+        int[] neighbors(int v) {
+            int[] neighbors = changed.get(v);
+            if (neighbors == null) {
+                neighbors = compacting.get(v);
+            }
+            return neighbors != null ? neighbors : base.neighbors(v);
+        }
+    }
+}
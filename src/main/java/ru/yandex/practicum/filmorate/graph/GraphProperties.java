@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.graph")
+public class GraphProperties {
+    private int compactionThreshold = 10_000;
+    private int parallelThreshold = 4096;
+}
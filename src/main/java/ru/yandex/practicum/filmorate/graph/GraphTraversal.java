@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Обходы графа дружбы уровнями BFS. Посещённые вершины хранятся в битовых множествах,
+ * а большие фронты раскрываются параллельно в общем ForkJoinPool.
+ */
+@Component
+public class GraphTraversal {
+    private final FriendGraph friendGraph;
+    private final int parallelThreshold;
+
+    public GraphTraversal(FriendGraph friendGraph, GraphProperties properties) {
+        this.friendGraph = friendGraph;
+        this.parallelThreshold = properties.getParallelThreshold();
+    }
+
+    /**
+     * Двунаправленный BFS: на каждом шаге раскрывается меньший из двух фронтов.
+     * Возвращает -1, если пути нет.
+     */
+    public int degreesOfSeparation(long fromId, long toId) {
+        int source = FriendGraph.vertex(fromId);
+        int target = FriendGraph.vertex(toId);
+        if (source == target) {
+            return 0;
+        }
+        GraphView graph = friendGraph.view();
+        int n = graph.vertexCount();
+        if (source >= n || target >= n) {
+            return -1;
+        }
+        AtomicBitSet visitedFromSource = new AtomicBitSet(n);
+        AtomicBitSet visitedFromTarget = new AtomicBitSet(n);
+        visitedFromSource.set(source);
+        visitedFromTarget.set(target);
+        int[] sourceFrontier = {source};
+        int[] targetFrontier = {target};
+        int sourceDepth = 0;
+        int targetDepth = 0;
+        AtomicBoolean met = new AtomicBoolean();
+        while (sourceFrontier.length > 0 && targetFrontier.length > 0) {
+            if (sourceFrontier.length <= targetFrontier.length) {
+                sourceFrontier = expand(graph, sourceFrontier, visitedFromSource, visitedFromTarget, met);
+                sourceDepth++;
+            } else {
+                targetFrontier = expand(graph, targetFrontier, visitedFromTarget, visitedFromSource, met);
+                targetDepth++;
+            }
+            if (met.get()) {
+                return sourceDepth + targetDepth;
+            }
+        }
+        return -1;
+    }
+
+    public long networkSize(long userId, int depth) {
+        int source = FriendGraph.vertex(userId);
+        GraphView graph = friendGraph.view();
+        int n = graph.vertexCount();
+        if (source >= n) {
+            return 0;
+        }
+        AtomicBitSet visited = new AtomicBitSet(n);
+        visited.set(source);
+        int[] frontier = {source};
+        long size = 0;
+        for (int level = 0; level < depth && frontier.length > 0; level++) {
+            frontier = expand(graph, frontier, visited, null, null);
+            size += frontier.length;
+        }
+        return size;
+    }
+
+    private int[] expand(GraphView graph, int[] frontier, AtomicBitSet visited, AtomicBitSet opposite,
+                         AtomicBoolean met) {
+        if (frontier.length < parallelThreshold) {
+            return expandRange(graph, frontier, 0, frontier.length, visited, opposite, met);
+        }
+        int chunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int chunkSize = (frontier.length + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> expandRange(graph, frontier, chunk * chunkSize,
+                        Math.min(frontier.length, (chunk + 1) * chunkSize), visited, opposite, met))
+                .flatMapToInt(IntStream::of)
+                .toArray();
+    }
+
+    private int[] expandRange(GraphView graph, int[] frontier, int from, int to, AtomicBitSet visited,
+                              AtomicBitSet opposite, AtomicBoolean met) {
+        IntList next = new IntList();
+        for (int i = from; i < to; i++) {
+            graph.forEachNeighbor(frontier[i], neighbour -> {
+                if (opposite != null && opposite.get(neighbour)) {
+                    met.set(true);
+                }
+                if (visited.set(neighbour)) {
+                    next.add(neighbour);
+                }
+            });
+        }
+        return next.toArray();
+    }
+}
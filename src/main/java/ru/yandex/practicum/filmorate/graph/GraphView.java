@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Представление графа для чтения: базовый CSR плюс неизменяемые списки соседей вершин,
+ * изменённых с последнего уплотнения. Создаётся за O(1) на каждый запрос.
+ */
+public final class GraphView {
+    private final CsrGraph base;
+    private final Map<Integer, int[]> compacting;
+    private final Map<Integer, int[]> changed;
+    private final int vertexCount;
+
+    GraphView(CsrGraph base, Map<Integer, int[]> compacting, Map<Integer, int[]> changed, int vertexCount) {
+        this.base = base;
+        this.compacting = compacting;
+        this.changed = changed;
+        this.vertexCount = vertexCount;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public void forEachNeighbor(int v, IntConsumer consumer) {
+        int[] neighbors = changed.get(v);
+        if (neighbors == null) {
+            neighbors = compacting.get(v);
+        }
+        if (neighbors == null) {
+            for (int i = base.start(v), end = base.end(v); i < end; i++) {
+                consumer.accept(base.target(i));
+            }
+            return;
+        }
+        for (int target : neighbors) {
+            // Ребро, добавленное после создания представления, может вести за его границу
+            if (target < vertexCount) {
+                consumer.accept(target);
+            }
+        }
+    }
+}
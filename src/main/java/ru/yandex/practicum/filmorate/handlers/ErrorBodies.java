@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.handlers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ApiError;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Тела ответов об ошибках в формате ApiError без сериализации объекта на каждый запрос.
+ * Шаблон для пары (статус, сообщение) получается один раз из того же ObjectMapper, что и остальные ответы:
+ * ApiError с маркерами вместо details и timestamp режется по маркерам, поэтому состав и порядок полей,
+ * включая subErrors, задаёт Jackson. На горячем пути экранируется только details, дата и время до секунды
+ * кодируются раз в секунду, а доли секунды дописываются вручную. Оба быстрых пути при создании бина
+ * сверяются с ObjectMapper на образцах; при расхождении соответствующая часть кодируется через ObjectMapper.
+ */
+@Component
+public class ErrorBodies {
+    private static final String DETAILS_MARKER = "\u0000details\u0000";
+    private static final LocalDateTime TIMESTAMP_MARKER = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String DETAILS_SAMPLE = "Фильм \"1\" не\tнайден \\ \u0001 </script>";
+    private static final int[] NANO_SAMPLES = {0, 1, 100_000_000, 120_000_000, 123_456_000, 123_456_789};
+    private static final int MAX_FRACTION_LENGTH = 10;
+    private static final Template NO_TEMPLATE = new Template(new byte[0], new byte[0], new byte[0], false);
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final boolean fastDetails;
+    private final boolean fastTimestamp;
+    private volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, new byte[0]);
+
+    public ErrorBodies(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.fastDetails = Arrays.equals(quote(DETAILS_SAMPLE), serialize(DETAILS_SAMPLE));
+        this.fastTimestamp = fastTimestampMatches();
+    }
+
+    public byte[] encode(HttpStatus status, String message, String details) {
+        return encode(status, message, details, LocalDateTime.now());
+    }
+
+    byte[] encode(HttpStatus status, String message, String details, LocalDateTime now) {
+        Template template = templates.computeIfAbsent(status.name() + '\n' + message,
+                key -> template(status, message));
+        if (template == NO_TEMPLATE || details == null) {
+            // Без шаблона или с null в details (его может опускать настройка включения полей) — как есть
+            return serialize(ApiError.builder().status(status).message(message).details(details).timestamp(now)
+                    .build());
+        }
+        byte[] encodedDetails = fastDetails && !hasSurrogates(details) ? quote(details) : serialize(details);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(template.length() + encodedDetails.length
+                + timestamp.encoded.length + MAX_FRACTION_LENGTH + 1);
+        out.writeBytes(template.head);
+        if (template.detailsFirst) {
+            out.writeBytes(encodedDetails);
+            out.writeBytes(template.middle);
+            writeTimestamp(out, now);
+        } else {
+            writeTimestamp(out, now);
+            out.writeBytes(template.middle);
+            out.writeBytes(encodedDetails);
+        }
+        out.writeBytes(template.tail);
+        return out.toByteArray();
+    }
+
+    private Template template(HttpStatus status, String message) {
+        String json = new String(serialize(ApiError.builder()
+                .status(status)
+                .message(message)
+                .details(DETAILS_MARKER)
+                .timestamp(TIMESTAMP_MARKER)
+                .build()), StandardCharsets.UTF_8);
+        String details = new String(serialize(DETAILS_MARKER), StandardCharsets.UTF_8);
+        String time = new String(serialize(TIMESTAMP_MARKER), StandardCharsets.UTF_8);
+        int detailsAt = json.indexOf(details);
+        int timeAt = json.indexOf(time);
+        if (detailsAt < 0 || timeAt < 0 || json.indexOf(time, timeAt + 1) >= 0) {
+            return NO_TEMPLATE;
+        }
+        boolean detailsFirst = detailsAt < timeAt;
+        int firstAt = Math.min(detailsAt, timeAt);
+        int firstEnd = firstAt + (detailsFirst ? details : time).length();
+        int secondAt = Math.max(detailsAt, timeAt);
+        int secondEnd = secondAt + (detailsFirst ? time : details).length();
+        return new Template(utf8(json.substring(0, firstAt)), utf8(json.substring(firstEnd, secondAt)),
+                utf8(json.substring(secondEnd)), detailsFirst);
+    }
+
+    private void writeTimestamp(ByteArrayOutputStream out, LocalDateTime now) {
+        if (!fastTimestamp) {
+            out.writeBytes(serialize(now));
+            return;
+        }
+        out.writeBytes(secondsTimestamp(now));
+        writeFraction(out, now.getNano());
+        out.write('"');
+    }
+
+    private boolean fastTimestampMatches() {
+        LocalDateTime base = LocalDateTime.of(2024, 2, 29, 23, 59, 58);
+        for (int nano : NANO_SAMPLES) {
+            LocalDateTime sample = base.withNano(nano);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(encodeSeconds(sample));
+            writeFraction(out, nano);
+            out.write('"');
+            if (!Arrays.equals(out.toByteArray(), serialize(sample))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] secondsTimestamp(LocalDateTime now) {
+        long second = now.toLocalDate().toEpochDay() * 86_400 + now.toLocalTime().toSecondOfDay();
+        Timestamp current = timestamp;
+        if (current.second != second) {
+            current = new Timestamp(second, encodeSeconds(now));
+            timestamp = current;
+        }
+        return current.encoded;
+    }
+
+    // Время до секунды в кодировке ObjectMapper без закрывающей кавычки
+    private byte[] encodeSeconds(LocalDateTime now) {
+        byte[] encoded = serialize(now.withNano(0));
+        return Arrays.copyOf(encoded, encoded.length - 1);
+    }
+
+    // Как ISO_LOCAL_DATE_TIME: точка и цифры без хвостовых нулей, при нулевых наносекундах — ничего
+    private static void writeFraction(ByteArrayOutputStream out, int nano) {
+        if (nano == 0) {
+            return;
+        }
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        byte[] fraction = new byte[digits + 1];
+        fraction[0] = '.';
+        for (int i = digits; i > 0; i--) {
+            fraction[i] = (byte) ('0' + nano % 10);
+            nano /= 10;
+        }
+        out.writeBytes(fraction);
+    }
+
+    // Символы вне BMP генератор Jackson пишет парой экранированных суррогатов, а JsonStringEncoder — байтами UTF-8
+    private static boolean hasSurrogates(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isSurrogate(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] quote(String value) {
+        byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] result = new byte[quoted.length + 2];
+        result[0] = '"';
+        System.arraycopy(quoted, 0, result, 1, quoted.length);
+        result[result.length - 1] = '"';
+        return result;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать тело ошибки", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Template(byte[] head, byte[] middle, byte[] tail, boolean detailsFirst) {
+        int length() {
+            return head.length + middle.length + tail.length;
+        }
+    }
+
+    private record Timestamp(long second, byte[] encoded) {
+    }
+}
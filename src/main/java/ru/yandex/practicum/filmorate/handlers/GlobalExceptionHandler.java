@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.handlers;
 
 
 import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +14,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.MethodNotSupportedException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.ApiError;
 
 import java.time.LocalDateTime;
@@ -19,30 +25,30 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    private static final long MAX_CLIENT_ERROR_LOGS_PER_SECOND = 10;
+
+    private final ErrorBodies errorBodies;
+
+    private final LogThrottle notFoundLog = new LogThrottle(MAX_CLIENT_ERROR_LOGS_PER_SECOND);
+    private final LogThrottle validationLog = new LogThrottle(MAX_CLIENT_ERROR_LOGS_PER_SECOND);
 
     @ExceptionHandler(NotFoundException.class)
-    public ResponseEntity<ApiError> handleNotFound(NotFoundException ex) {
-        log.error("Not found: {}", ex.getMessage());
-        ApiError error = ApiError.builder()
-                .status(HttpStatus.NOT_FOUND)
-                .message("Not found")
-                .details(ex.getMessage())
-                .timestamp(LocalDateTime.now())
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    public ResponseEntity<byte[]> handleNotFound(NotFoundException ex) {
+        if (notFoundLog.tryAcquire()) {
+            log.warn("Not found: {} (подавлено похожих сообщений: {})", ex.getMessage(), notFoundLog.takeSuppressed());
+        }
+        return errorResponse(HttpStatus.NOT_FOUND, "Not found", ex.getMessage());
     }
 
     @ExceptionHandler(ValidationException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ApiError handleValidation(ValidationException ex) {
-        log.error("Validation error: {}", ex.getMessage());
-        return ApiError.builder()
-                .status(HttpStatus.BAD_REQUEST)
-                .message("Validation failed")
-                .details(ex.getMessage())
-                .timestamp(LocalDateTime.now())
-                .build();
+    public ResponseEntity<byte[]> handleValidation(ValidationException ex) {
+        if (validationLog.tryAcquire()) {
+            log.warn("Validation error: {} (подавлено похожих сообщений: {})", ex.getMessage(),
+                    validationLog.takeSuppressed());
+        }
+        return errorResponse(HttpStatus.BAD_REQUEST, "Validation failed", ex.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -52,7 +58,10 @@ public class GlobalExceptionHandler {
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .collect(Collectors.joining("; "));
 
-        log.error("Validation error: {}", errorDetails);
+        if (validationLog.tryAcquire()) {
+            log.warn("Validation error: {} (подавлено похожих сообщений: {})", errorDetails,
+                    validationLog.takeSuppressed());
+        }
         return ApiError.builder()
                 .status(HttpStatus.BAD_REQUEST)
                 .message("Validation error")
@@ -61,6 +70,33 @@ public class GlobalExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(VersionConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiError handleVersionConflict(VersionConflictException ex) {
+        log.warn("Version conflict: {}", ex.getMessage());
+        return ApiError.builder()
+                .status(HttpStatus.CONFLICT)
+                .message("Version conflict")
+                .details(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<byte[]> handleTooManyRequests(TooManyRequestsException ex) {
+        log.debug("Rate limited: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBodies.encode(HttpStatus.TOO_MANY_REQUESTS, "Too many requests", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<byte[]> handleServiceOverloaded(ServiceOverloadedException ex) {
+        log.debug("Load shed: {}", ex.getMessage());
+        return errorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service overloaded", ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ApiError handleAllExceptions(Exception ex) {
@@ -96,4 +132,10 @@ public class GlobalExceptionHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
     }
+
+    private ResponseEntity<byte[]> errorResponse(HttpStatus status, String message, String details) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBodies.encode(status, message, details));
+    }
 }
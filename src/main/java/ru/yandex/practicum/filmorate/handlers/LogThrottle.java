@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.handlers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пропускает не больше maxPerSecond сообщений в секунду и считает подавленные,
+ * чтобы поток однотипных ошибок не превращался в поток записей в лог.
+ */
+final class LogThrottle {
+    private final long maxPerSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    LogThrottle(long maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    boolean tryAcquire() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= maxPerSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum ChangeType {
+    FILM_CREATED,
+    FILM_UPDATED,
+    FILM_DELETED,
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED,
+    LIKE_ADDED,
+    LIKE_REMOVED,
+    FRIEND_ADDED,
+    FRIEND_REMOVED
+}
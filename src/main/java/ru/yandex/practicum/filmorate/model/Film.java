@@ -12,12 +12,14 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Film {
     private Long id;
 
+    private Long version;
+
     @NotBlank(message = "Название не может быть пустым")
     private String name;
 
@@ -33,7 +35,8 @@ public class Film {
     private Integer duration;
 
     @Builder.Default
-    private Set<Long> likes = new HashSet<>();
+    private Set<@NotNull @Positive(message = "ID пользователя в лайках должен быть положительным") Long> likes =
+            new HashSet<>();
 
     @JsonSetter("likes")
     public void setLikes(Set<Long> likes) {
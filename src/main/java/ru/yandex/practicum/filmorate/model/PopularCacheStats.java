@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularCacheStats {
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long refreshes;
+    private Long snapshotAgeMs;
+    private long pendingLikeChanges;
+    private long maxStalenessMs;
+}
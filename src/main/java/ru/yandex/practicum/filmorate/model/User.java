@@ -2,8 +2,10 @@ package ru.yandex.practicum.filmorate.model;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import lombok.Builder;
 import lombok.Data;
 
@@ -12,10 +14,12 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class User {
     private Long id;
 
+    private Long version;
+
     @NotBlank(message = "Email не может быть пустым")
     @Email(message = "Некорректный формат email")
     private String email;
@@ -30,7 +34,7 @@ public class User {
     private LocalDate birthday;
 
     @Builder.Default
-    private Set<Long> friends = new HashSet<>();
+    private Set<@NotNull @Positive(message = "ID друга должен быть положительным") Long> friends = new HashSet<>();
 
 //    public User() {
 //        this.friends = new HashSet<>();
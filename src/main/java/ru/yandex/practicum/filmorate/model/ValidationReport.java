@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationReport {
+    private long id;
+    private ValidationStatus status;
+    private long total;
+    private long validated;
+    private int partitionsChecked;
+    private int partitions;
+    private double progress;
+    private long invalid;
+    private long emailConflicts;
+    private long loginConflicts;
+    private long elapsedMillis;
+    private String error;
+    @Builder.Default
+    private List<ValidationConflict> conflicts = new ArrayList<>();
+}
@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.popular;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.async.StorageExecutor;
+import ru.yandex.practicum.filmorate.counters.EngagementCounters;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularCacheStats;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Заранее посчитанные списки популярных фильмов для частых значений count.
+ * Чтение — один volatile-доступ к снимку. Снимок пересобирается планировщиком, после changeThreshold
+ * изменений лайков (в фоне) и синхронно, если он старше maxStalenessMs. Добавление, изменение
+ * и удаление фильмов сбрасывают снимок сразу: меняется состав списка, а не только порядок.
+ * Пересборку выполняет один поток, остальные читатели ждут её, а не запускают свою. Пока снимок не старше
+ * maxStalenessMs, его отдают и во время пересборки. Фоновая пересборка стоит в очереди не больше одной.
+ * Если лайки с прошлой сборки не менялись, снимок только продлевается.
+ * В снимке лежат отделённые копии фильмов с неизменяемым набором лайков.
+ */
+@Slf4j
+@Component
+public class PopularFilmsCache {
+    private final PopularFilmsProperties properties;
+    private final EngagementCounters counters;
+    private final FilmStorage filmStorage;
+    private final StorageExecutor storageExecutor;
+    private final int largestCount;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong likeChanges = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public PopularFilmsCache(PopularFilmsProperties properties, EngagementCounters counters,
+                             FilmStorage filmStorage, StorageExecutor storageExecutor) {
+        this.properties = properties;
+        this.counters = counters;
+        this.filmStorage = filmStorage;
+        this.storageExecutor = storageExecutor;
+        this.largestCount = properties.getCounts().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    public List<Film> get(int count) {
+        if (!properties.isEnabled() || count > largestCount) {
+            misses.increment();
+            return compute(count);
+        }
+        Snapshot current = snapshot.get();
+        if (current != null && (current.ageNanos() <= properties.getMaxStalenessMs() * 1_000_000
+                || extend(current))) {
+            hits.increment();
+            return current.get(count);
+        }
+        misses.increment();
+        return rebuildOnce().get(count);
+    }
+
+    public void recordLikeChange() {
+        long changes = likeChanges.incrementAndGet();
+        Snapshot current = snapshot.get();
+        if (current != null && changes - current.changeMark >= properties.getChangeThreshold()
+                && inFlight.get() == null && rebuildScheduled.compareAndSet(false, true)) {
+            try {
+                storageExecutor.run(this::backgroundRebuild);
+            } catch (RuntimeException e) {
+                rebuildScheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    // Фоновой задаче незачем ждать чужую пересборку: она уже учтёт часть изменений, остальные подхватит refresh
+    private void backgroundRebuild() {
+        try {
+            if (inFlight.get() == null) {
+                rebuildOnce();
+            }
+        } finally {
+            rebuildScheduled.set(false);
+        }
+    }
+
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.popular-cache.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (properties.isEnabled() && !extend(snapshot.get())) {
+            rebuildOnce();
+        }
+    }
+
+    public PopularCacheStats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Snapshot current = snapshot.get();
+        return PopularCacheStats.builder()
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0)
+                .refreshes(refreshes.sum())
+                .snapshotAgeMs(current != null ? current.ageNanos() / 1_000_000 : null)
+                .pendingLikeChanges(current != null ? likeChanges.get() - current.changeMark : 0)
+                .maxStalenessMs(properties.getMaxStalenessMs())
+                .build();
+    }
+
+    // Лайки со сборки не менялись, а состав сброс бы обнулил: снимок верен и только получает новую метку времени
+    private boolean extend(Snapshot current) {
+        if (current == null || likeChanges.get() != current.changeMark) {
+            return false;
+        }
+        snapshot.compareAndSet(current, new Snapshot(current.top, current.byCount, System.nanoTime(),
+                current.changeMark));
+        return true;
+    }
+
+    private Snapshot rebuildOnce() {
+        CompletableFuture<Snapshot> own = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, own);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Snapshot built = rebuild();
+            own.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private Snapshot rebuild() {
+        long startGeneration = generation.get();
+        long changeMark = likeChanges.get();
+        List<Film> top = compute(largestCount).stream()
+                .map(film -> film.toBuilder()
+                        .likes(Collections.unmodifiableSet(new LinkedHashSet<>(film.getLikes())))
+                        .build())
+                .toList();
+        Map<Integer, List<Film>> byCount = new HashMap<>();
+        for (Integer count : properties.getCounts()) {
+            byCount.put(count, List.copyOf(top.subList(0, Math.min(count, top.size()))));
+        }
+        Snapshot built = new Snapshot(top, Map.copyOf(byCount), System.nanoTime(), changeMark);
+        install(built, startGeneration);
+        refreshes.increment();
+        return built;
+    }
+
+    // Снимок, посчитанный до сброса, устанавливать нельзя: в нём может не быть нового фильма
+    private synchronized void install(Snapshot built, long startGeneration) {
+        if (generation.get() == startGeneration) {
+            snapshot.set(built);
+        }
+    }
+
+    // Состав выборки проверяется без чтения фильмов, а читаются с лайками только попавшие в неё
+    private List<Film> compute(int count) {
+        int limit = Math.max(count, 1);
+        while (true) {
+            List<Long> ids = popularIds(limit);
+            List<Film> popular = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                filmStorage.getFilmById(id).ifPresent(popular::add);
+            }
+            if (popular.size() == ids.size()) {
+                return popular;
+            }
+            // Фильм удалён между выборкой и чтением — выборку повторяем
+        }
+    }
+
+    private List<Long> popularIds(int limit) {
+        while (true) {
+            List<Long> ids = counters.getFilmLikes().top(limit);
+            boolean stale = false;
+            for (Long id : ids) {
+                if (!filmStorage.existsFilm(id)) {
+                    // Фильм удалён в обход сервиса — счётчик больше не нужен, выборку повторяем
+                    counters.getFilmLikes().remove(id);
+                    stale = true;
+                }
+            }
+            if (!stale) {
+                return ids;
+            }
+        }
+    }
+
+    private record Snapshot(List<Film> top, Map<Integer, List<Film>> byCount, long builtAt, long changeMark) {
+
+        List<Film> get(int count) {
+            List<Film> exact = byCount.get(count);
+            return exact != null ? exact : top.subList(0, Math.min(count, top.size()));
+        }
+
+        long ageNanos() {
+            return System.nanoTime() - builtAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.popular;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.popular-cache")
+public class PopularFilmsProperties {
+    private boolean enabled = true;
+    private List<Integer> counts = List.of(10, 20, 50, 100);
+    private long maxStalenessMs = 5000;
+    private int changeThreshold = 100;
+}
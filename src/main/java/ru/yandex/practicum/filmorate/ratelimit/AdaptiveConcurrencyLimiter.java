@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD-ограничитель числа одновременно обрабатываемых запросов: лимит растёт на единицу,
+ * пока задержка ниже целевой, и умножается на backoffRatio, когда задержка её превышает.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    public AdaptiveConcurrencyLimiter(LoadSheddingProperties properties) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit())));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(properties.getTargetLatencyMs());
+        this.backoffRatio = properties.getBackoffRatio();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos > targetLatencyNanos) {
+            limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+        } else {
+            limit.updateAndGet(l -> current * 2 >= l ? Math.min(maxLimit, l + 1) : l);
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.load-shedding")
+public class LoadSheddingProperties {
+    private boolean enabled = true;
+    private int initialLimit = 64;
+    private int minLimit = 8;
+    private int maxLimit = 512;
+    private long targetLatencyMs = 50;
+    private double backoffRatio = 0.9;
+    // Массовый импорт идёт долго и занижал бы лимит, подстроенный под обычные запросы
+    private List<String> excludedPaths = List.of("/films/import", "/users/import");
+}
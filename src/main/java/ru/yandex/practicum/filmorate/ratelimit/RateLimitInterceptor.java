@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String START_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".start";
+
+    private final RateLimitProperties rateLimitProperties;
+    private final LoadSheddingProperties loadSheddingProperties;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Асинхронный запрос проходит через перехватчик второй раз при ASYNC-диспетчеризации:
+        // лимиты уже применены, а разрешение удерживается до afterCompletion этого прохода
+        if (READ_METHODS.contains(request.getMethod()) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (rateLimitProperties.isEnabled() && !rateLimiter.tryAcquire(clientId(request) + ' ' + endpoint(request))) {
+            throw new TooManyRequestsException("Превышен лимит запросов", rateLimiter.retryAfterSeconds());
+        }
+        if (loadSheddingProperties.isEnabled() && !loadSheddingProperties.getExcludedPaths().contains(path(request))) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                throw new ServiceOverloadedException("Сервис перегружен, повторите запрос позже");
+            }
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            // Атрибут снимается, чтобы повторный afterCompletion не вернул разрешение дважды
+            request.removeAttribute(START_ATTRIBUTE);
+            concurrencyLimiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String header = rateLimitProperties.getClientIdHeader();
+        if (header != null && !header.isBlank()) {
+            String value = request.getHeader(header);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + ' ' + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private double permitsPerSecond = 50;
+    private int burst = 100;
+    private int slots = 65536;
+    private String clientIdHeader;
+}
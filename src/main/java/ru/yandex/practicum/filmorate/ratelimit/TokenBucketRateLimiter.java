@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket в форме GCRA: для каждого ключа хранится только "теоретическое время прихода"
+ * следующего запроса. Ключи хешируются в фиксированный массив слотов, поэтому память ограничена
+ * размером массива, а обновление слота — один CAS без блокировок.
+ */
+@Component
+public class TokenBucketRateLimiter {
+    private final AtomicLongArray theoreticalArrival;
+    private final int mask;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final long origin = System.nanoTime();
+
+    public TokenBucketRateLimiter(RateLimitProperties properties) {
+        if (properties.getPermitsPerSecond() <= 0 || properties.getBurst() < 1 || properties.getSlots() < 1) {
+            throw new IllegalArgumentException("Некорректные параметры ограничения частоты запросов");
+        }
+        int size = properties.getSlots() == 1 ? 1 : Integer.highestOneBit(properties.getSlots() - 1) << 1;
+        this.theoreticalArrival = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / properties.getPermitsPerSecond());
+        this.burstToleranceNanos = emissionIntervalNanos * properties.getBurst();
+    }
+
+    public boolean tryAcquire(String key) {
+        int slot = spread(key.hashCode()) & mask;
+        while (true) {
+            long now = System.nanoTime() - origin;
+            long tat = theoreticalArrival.get(slot);
+            long next = Math.max(tat, now) + emissionIntervalNanos;
+            if (next - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(slot, tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, emissionIntervalNanos / 1_000_000_000L);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
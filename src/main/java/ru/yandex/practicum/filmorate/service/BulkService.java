@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.popular.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BulkProperties properties;
+    private final PopularFilmsCache popularFilmsCache;
+
+    // Строки записываются по одной через те же пути, что и POST /films и POST /users
+    public BulkImportResult importFilms(InputStream in) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        try (MappingIterator<Film> films = objectMapper.readerFor(Film.class).readValues(in)) {
+            while (nextRow(films, progress)) {
+                progress.line++;
+                Film film = readRow(films, progress);
+                if (film == null) {
+                    continue;
+                }
+                try {
+                    validate(film);
+                    filmService.validateFilm(film);
+                } catch (ValidationException e) {
+                    progress.reject(e.getMessage());
+                    continue;
+                }
+                film.setId(null);
+                film.setLikes(new HashSet<>());
+                filmService.insertFilm(film);
+                progress.imported++;
+            }
+        } finally {
+            if (progress.imported > 0) {
+                popularFilmsCache.invalidate();
+            }
+        }
+        return progress.result("фильмов");
+    }
+
+    public BulkImportResult importUsers(InputStream in) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(in)) {
+            while (nextRow(users, progress)) {
+                progress.line++;
+                User user = readRow(users, progress);
+                if (user == null) {
+                    continue;
+                }
+                try {
+                    validate(user);
+                } catch (ValidationException e) {
+                    progress.reject(e.getMessage());
+                    continue;
+                }
+                user.setId(null);
+                try {
+                    userService.insertUser(user);
+                } catch (ResponseStatusException e) {
+                    // Уникальность проверяется при самой записи, поэтому учитывает и параллельные POST /users
+                    progress.reject(e.getReason() + ": " + user.getEmail() + " / " + user.getLogin());
+                    continue;
+                }
+                progress.imported++;
+            }
+        }
+        return progress.result("пользователей");
+    }
+
+    public long exportFilms(OutputStream out) throws IOException {
+        return export(filmStorage.getAllFilms(), Film.class, out, "фильмов");
+    }
+
+    public long exportUsers(OutputStream out) throws IOException {
+        return export(userStorage.getAllUsers(), User.class, out, "пользователей");
+    }
+
+    private <T> long export(Collection<T> rows, Class<T> type, OutputStream out, String what) throws IOException {
+        long start = System.nanoTime();
+        long count = 0;
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        for (T row : rows) {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.close();
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        log.info("Выгружено {} {} за {} мс ({} строк/с)", count, what, elapsedNanos / 1_000_000,
+                Math.round(count * 1e9 / elapsedNanos));
+        return count;
+    }
+
+    private boolean nextRow(MappingIterator<?> rows, ImportProgress progress) {
+        if (progress.aborted) {
+            return false;
+        }
+        try {
+            return rows.hasNextValue();
+        } catch (IOException e) {
+            progress.reject("Ошибка разбора NDJSON: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> T readRow(MappingIterator<T> rows, ImportProgress progress) {
+        try {
+            return rows.nextValue();
+        } catch (JsonParseException e) {
+            progress.reject("Ошибка разбора NDJSON: " + e.getOriginalMessage());
+            progress.aborted = true;
+            return null;
+        } catch (IOException e) {
+            progress.reject("Некорректная запись: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> void validate(T row) {
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            throw new DomainValidationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private final class ImportProgress {
+        private final long start = System.nanoTime();
+        private final List<String> errors = new ArrayList<>();
+        private long line;
+        private long imported;
+        private long rejected;
+        private boolean aborted;
+
+        private void reject(String reason) {
+            rejected++;
+            if (errors.size() < properties.getMaxReportedErrors()) {
+                errors.add("Строка " + line + ": " + reason);
+            }
+        }
+
+        private BulkImportResult result(String what) {
+            long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+            double rowsPerSecond = imported * 1e9 / elapsedNanos;
+            log.info("Загружено {} {}, отклонено {}, {} строк/с", imported, what, rejected, Math.round(rowsPerSecond));
+            return BulkImportResult.builder()
+                    .imported(imported)
+                    .rejected(rejected)
+                    .elapsedMillis(elapsedNanos / 1_000_000)
+                    .rowsPerSecond(rowsPerSecond)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
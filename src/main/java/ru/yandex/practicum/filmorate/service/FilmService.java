@@ -1,18 +1,30 @@
 package ru.yandex.practicum.filmorate.service;
 
-import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.async.StorageExecutor;
+import ru.yandex.practicum.filmorate.cascade.CascadeCleaner;
+import ru.yandex.practicum.filmorate.cascade.CascadeTask;
+import ru.yandex.practicum.filmorate.cascade.DeletionTombstones;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.counters.EngagementCounters;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeType;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
+import ru.yandex.practicum.filmorate.model.PopularCacheStats;
+import ru.yandex.practicum.filmorate.popular.PopularFilmsCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,14 +34,48 @@ public class FilmService {
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, 12, 28);
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final EngagementCounters counters;
+    private final UserLikesIndex userLikesIndex;
+    private final DeletionTombstones tombstones;
+    private final CascadeCleaner cascadeCleaner;
+    private final StorageExecutor storageExecutor;
+    private final PopularFilmsCache popularFilmsCache;
+    private final ChangeFeed changeFeed;
 
 
     public Collection<Film> getAllFilms() {
         return filmStorage.getAllFilms();
     }
 
+    public List<FilmSummary> getAllFilmSummaries() {
+        return filmStorage.getAllFilms().stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
     public void deleteFilm(Long id) {
-        filmStorage.deleteFilm(id);
+        if (!filmStorage.existsFilm(id)) {
+            return;
+        }
+        tombstones.markFilm(id);
+        // Хранилище возвращает лайки на момент удаления: лайк, записанный раньше, попадёт в каскад,
+        // а более поздний отклоняется самим хранилищем
+        Optional<Film> film = filmStorage.deleteFilm(id);
+        counters.getFilmLikes().remove(id);
+        popularFilmsCache.invalidate();
+        if (film.isEmpty()) {
+            tombstones.clearFilm(id);
+            return;
+        }
+        long[] likers = film.get().getLikes().stream().mapToLong(Long::longValue).toArray();
+        cascadeCleaner.submit(new CascadeTask("фильма " + id, () -> tombstones.clearFilm(id))
+                .then(likers, userId -> detachLiker(id, userId)));
+    }
+
+    // Лайки удалённого фильма исчезли вместе с ним, поэтому LIKE_REMOVED публикует каскад
+    private void detachLiker(Long filmId, Long userId) {
+        userLikesIndex.remove(userId, filmId);
+        changeFeed.publish(ChangeType.LIKE_REMOVED, filmId, userId);
     }
 
     public Film getFilmById(Long id) {
@@ -37,47 +83,154 @@ public class FilmService {
                 .orElseThrow(() -> new NotFoundException("Фильм с ID " + id + " не найден"));
     }
 
+    public FilmSummary getFilmSummaryById(Long id) {
+        return toSummary(getFilmById(id));
+    }
+
+    public List<Long> getLikes(Long filmId, int from, int size) {
+        return IdPages.page(getFilmById(filmId).getLikes(), from, size, userId -> !tombstones.isUserDeleted(userId));
+    }
+
     public Film addFilm(Film film) {
         validateFilm(film);
+        Film added = insertFilm(film);
+        popularFilmsCache.invalidate();
+        return added;
+    }
+
+    // Общий путь записи для POST /films и импорта; кэш популярных импорт сбрасывает один раз в конце
+    Film insertFilm(Film film) {
         if (film.getLikes() == null) {
             film.setLikes(new HashSet<>());
         }
-        return filmStorage.addFilm(film);
+        Film added = filmStorage.addFilm(film);
+        counters.getFilmLikes().add(added.getId(), added.getLikes().size());
+        added.getLikes().forEach(userId -> userLikesIndex.add(userId, added.getId()));
+        return added;
     }
 
-    public Film updateFilm(Film film) {
-        Film existingFilm = getExistingFilm(film.getId());
-        validateFilm(film);
-        updateFilmFields(film, existingFilm);
-        return filmStorage.updateFilm(existingFilm);
+    public Film updateFilm(Film film, Long expectedVersion) {
+        Long version = expectedVersion != null ? expectedVersion : film.getVersion();
+        while (true) {
+            Film existingFilm = getExistingFilm(film.getId());
+            validateFilm(film);
+            Film updatedFilm = existingFilm.toBuilder()
+                    .version(version != null ? version : existingFilm.getVersion())
+                    .build();
+            updateFilmFields(film, updatedFilm);
+            try {
+                Film updated = filmStorage.updateFilm(updatedFilm);
+                popularFilmsCache.invalidate();
+                return updated;
+            } catch (VersionConflictException e) {
+                if (version != null) {
+                    throw e;
+                }
+                log.debug("Повтор безусловного обновления фильма ID: {}", film.getId());
+            }
+        }
     }
 
     public void addLike(Long filmId, Long userId) {
-        Film film = getExistingFilm(filmId);
-        User user = userStorage.getUserById(userId);
+        requireFilm(filmId);
+        requireUser(userId);
+        like(filmId, userId);
+    }
+
+    // Проверки фильма и пользователя независимы и выполняются параллельно
+    public CompletableFuture<Void> addLikeAsync(Long filmId, Long userId) {
+        return filmAndUserExist(filmId, userId)
+                .thenRunAsync(() -> like(filmId, userId), storageExecutor.getExecutor());
+    }
 
-        if (!film.getLikes().add(userId)) {
-            throw new ValidationException("Пользователь уже поставил лайк этому фильму");
+    private void like(Long filmId, Long userId) {
+        if (!filmStorage.addLike(filmId, userId)) {
+            throw new DomainValidationException("Пользователь уже поставил лайк этому фильму");
+        }
+        counters.getFilmLikes().increment(filmId);
+        userLikesIndex.add(userId, filmId);
+        popularFilmsCache.recordLikeChange();
+        // Фильм мог быть удалён сразу после записи: его каскад уже мог пройти и не увидеть индекс и счётчик
+        if (filmMissing(filmId)) {
+            userLikesIndex.remove(userId, filmId);
+            counters.getFilmLikes().remove(filmId);
+            throw new FilmNotFoundException("Фильм с ID " + filmId + " не найден");
+        }
+        // Пользователь мог быть удалён между проверкой и записью: тогда его каскад лайк уже не увидит
+        if (userMissing(userId)) {
+            unlike(filmId, userId);
+            throw new NotFoundException("Пользователь", userId);
         }
-        filmStorage.updateFilm(film);
     }
 
     public void removeLike(Long filmId, Long userId) {
-        Film film = getExistingFilm(filmId);
-        User user = userStorage.getUserById(userId);
+        requireFilm(filmId);
+        requireUser(userId);
+        removeExistingLike(filmId, userId);
+    }
 
-        if (!film.getLikes().remove(userId)) {
-            throw new ValidationException("Пользователь не ставил лайк этому фильму");
+    public CompletableFuture<Void> removeLikeAsync(Long filmId, Long userId) {
+        return filmAndUserExist(filmId, userId)
+                .thenRunAsync(() -> removeExistingLike(filmId, userId), storageExecutor.getExecutor());
+    }
+
+    private void removeExistingLike(Long filmId, Long userId) {
+        if (!unlike(filmId, userId)) {
+            throw new DomainValidationException("Пользователь не ставил лайк этому фильму");
         }
-        filmStorage.updateFilm(film);
     }
 
     public List<Film> getPopularFilms(int count) {
-        return filmStorage.getAllFilms().stream()
-                .filter(f -> f.getLikes() != null)
-                .sorted(Comparator.comparingInt(f -> -f.getLikes().size()))
-                .limit(Math.max(count, 1))
-                .collect(Collectors.toList());
+        return popularFilmsCache.get(Math.max(count, 1));
+    }
+
+    public PopularCacheStats getPopularCacheStats() {
+        return popularFilmsCache.getStats();
+    }
+
+    public CompletableFuture<List<Film>> getPopularFilmsAsync(int count) {
+        return storageExecutor.supply(() -> getPopularFilms(count));
+    }
+
+    public CompletableFuture<List<FilmSummary>> getPopularFilmSummariesAsync(int count) {
+        return getPopularFilmsAsync(count).thenApply(films -> films.stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<Void> filmAndUserExist(Long filmId, Long userId) {
+        return CompletableFuture.allOf(
+                storageExecutor.run(() -> requireFilm(filmId)),
+                storageExecutor.run(() -> requireUser(userId)));
+    }
+
+    private boolean unlike(Long filmId, Long userId) {
+        userLikesIndex.remove(userId, filmId);
+        if (!filmStorage.removeLike(filmId, userId)) {
+            return false;
+        }
+        counters.getFilmLikes().decrement(filmId);
+        popularFilmsCache.recordLikeChange();
+        return true;
+    }
+
+    private boolean filmMissing(Long filmId) {
+        return tombstones.isFilmDeleted(filmId) || !filmStorage.existsFilm(filmId);
+    }
+
+    private boolean userMissing(Long userId) {
+        return !userStorage.existsUser(userId);
+    }
+
+    private FilmSummary toSummary(Film film) {
+        return FilmSummary.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .likesCount((int) counters.getFilmLikes().get(film.getId()))
+                .build();
     }
 
     private Film getExistingFilm(Long id) {
@@ -85,12 +238,25 @@ public class FilmService {
                 .orElseThrow(() -> new FilmNotFoundException("Фильм не найден"));
     }
 
-    private void validateFilm(Film film) {
+    // Для лайков нужен только факт существования: сам фильм с набором лайков не читается
+    private void requireFilm(Long id) {
+        if (!filmStorage.existsFilm(id)) {
+            throw new FilmNotFoundException("Фильм не найден");
+        }
+    }
+
+    private void requireUser(Long id) {
+        if (!userStorage.existsUser(id)) {
+            throw new NotFoundException("Пользователь", id);
+        }
+    }
+
+    void validateFilm(Film film) {
         if (film.getReleaseDate().isBefore(CINEMA_BIRTHDAY)) {
-            throw new ValidationException("Дата релиза не может быть раньше " + CINEMA_BIRTHDAY);
+            throw new DomainValidationException("Дата релиза не может быть раньше " + CINEMA_BIRTHDAY);
         }
         if (film.getDuration() <= 0) {
-            throw new ValidationException("Продолжительность должна быть положительной");
+            throw new DomainValidationException("Продолжительность должна быть положительной");
         }
     }
 
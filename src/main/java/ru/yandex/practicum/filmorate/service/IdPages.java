@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Постраничная выдача ID из неупорядоченного набора по возрастанию без сортировки всего набора:
+ * куча держит только from + size наименьших видимых ID, поэтому страница стоит O(n log(from + size)).
+ */
+final class IdPages {
+    private IdPages() {
+    }
+
+    static List<Long> page(Collection<Long> ids, int from, int size, Predicate<Long> visible) {
+        if (size <= 0 || ids.isEmpty()) {
+            return List.of();
+        }
+        int bound = (int) Math.min((long) from + size, Integer.MAX_VALUE - 1);
+        PriorityQueue<Long> heap = new PriorityQueue<>(Math.min(bound, ids.size()) + 1, Comparator.reverseOrder());
+        for (Long id : ids) {
+            if (heap.size() == bound && id >= heap.peek() || !visible.test(id)) {
+                continue;
+            }
+            heap.offer(id);
+            if (heap.size() > bound) {
+                heap.poll();
+            }
+        }
+        Long[] result = new Long[heap.size() - Math.min(from, heap.size())];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return Arrays.asList(result);
+    }
+}
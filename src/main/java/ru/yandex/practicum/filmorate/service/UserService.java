@@ -1,16 +1,40 @@
 package ru.yandex.practicum.filmorate.service;
 
-import jakarta.validation.ValidationException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.async.StorageExecutor;
+import ru.yandex.practicum.filmorate.cascade.CascadeCleaner;
+import ru.yandex.practicum.filmorate.cascade.CascadeTask;
+import ru.yandex.practicum.filmorate.cascade.DeletionTombstones;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.counters.EngagementCounters;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.graph.FriendGraph;
+import ru.yandex.practicum.filmorate.graph.GraphTraversal;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.NetworkSize;
+import ru.yandex.practicum.filmorate.model.Separation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+import ru.yandex.practicum.filmorate.popular.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidationRunner;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -18,98 +42,320 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
     private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final GraphTraversal graphTraversal;
+    private final EngagementCounters counters;
+    private final FilmStorage filmStorage;
+    private final UserLikesIndex userLikesIndex;
+    private final DeletionTombstones tombstones;
+    private final CascadeCleaner cascadeCleaner;
+    private final StorageExecutor storageExecutor;
+    private final PopularFilmsCache popularFilmsCache;
+    private final Validator validator;
+    private final UserValidationRunner userValidationRunner;
+    private final ChangeFeed changeFeed;
+    // Проверка уникальности email и логина и сама запись выполняются под блокировками их полос,
+    // иначе два параллельных создания с одним email проходят проверку оба
+    private final ReentrantLock[] uniqueKeyLocks = newLocks(64);
 
     public Collection<User> getAllUsers() {
         return userStorage.getAllUsers();
     }
 
+    public List<UserSummary> getAllUserSummaries() {
+        return userStorage.getAllUsers().stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
     public User addUser(User user) {
         validateUser(user);
-        validateUnique(user);
-        return userStorage.addUser(user);
+        return insertUser(user);
+    }
+
+    // Общий путь записи для POST /users и импорта. Друзья из тела запроса не принимаются:
+    // дружба симметрична и попадает в граф только через addFriend, как и при обновлении
+    User insertUser(User user) {
+        user.setFriends(new HashSet<>());
+        User added = withUniqueKeys(user, () -> {
+            validateUnique(user);
+            return userStorage.addUser(user);
+        });
+        counters.getUserFriends().add(added.getId(), added.getFriends().size());
+        return added;
     }
 
     public User getUserById(Long id) {
         return userStorage.getUserById(id);
     }
 
-    public User updateUser(User user) {
-        User existingUser = userStorage.getUserById(user.getId());
+    public UserSummary getUserSummaryById(Long id) {
+        return toSummary(userStorage.getUserById(id));
+    }
+
+    public User updateUser(User user, Long expectedVersion) {
+        Long version = expectedVersion != null ? expectedVersion : user.getVersion();
+        while (true) {
+            User existingUser = userStorage.getUserById(user.getId());
 
-        validateUpdateUnique(user, existingUser);
-        updateUserFields(user, existingUser);
-        validateUser(existingUser);
+            User updatedUser = existingUser.toBuilder()
+                    .version(version != null ? version : existingUser.getVersion())
+                    .build();
+            updateUserFields(user, updatedUser);
+            validateUser(updatedUser);
 
-        return userStorage.updateUser(existingUser);
+            try {
+                return withUniqueKeys(updatedUser, () -> {
+                    validateUpdateUnique(user, existingUser);
+                    return userStorage.updateUser(updatedUser);
+                });
+            } catch (VersionConflictException e) {
+                if (version != null) {
+                    throw e;
+                }
+                log.debug("Повтор безусловного обновления пользователя ID: {}", user.getId());
+            }
+        }
     }
 
     public void deleteUser(Long id) {
+        Optional<User> user = findUser(id);
+        if (user.isEmpty()) {
+            return;
+        }
+        tombstones.markUser(id);
         userStorage.deleteUser(id);
+        counters.getUserFriends().remove(id);
+        // Дружба симметрична, поэтому обратные ссылки — это собственный список друзей удаляемого
+        long[] friends = user.get().getFriends().stream().mapToLong(Long::longValue).toArray();
+        long[] likedFilms = userLikesIndex.getLikedFilms(id);
+        cascadeCleaner.submit(new CascadeTask("пользователя " + id, () -> {
+            userLikesIndex.removeUser(id);
+            tombstones.clearUser(id);
+        })
+                .then(friends, friendId -> detachDeletedFriend(id, friendId))
+                .then(likedFilms, filmId -> detachLike(filmId, id)));
     }
 
     public void addFriend(Long userId, Long friendId) {
-        User user = userStorage.getUserById(userId);
-        User friend = userStorage.getUserById(friendId);
+        requireUser(userId);
+        requireUser(friendId);
+        link(userId, friendId);
+    }
 
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>());
+    // Обе проверки существования независимы и выполняются параллельно
+    public CompletableFuture<Void> addFriendAsync(Long userId, Long friendId) {
+        return bothExist(userId, friendId)
+                .thenRunAsync(() -> link(userId, friendId), storageExecutor.getExecutor());
+    }
+
+    private void link(Long userId, Long friendId) {
+        if (userStorage.addFriend(userId, friendId)) {
+            counters.getUserFriends().increment(userId);
+        }
+        if (userStorage.addFriend(friendId, userId)) {
+            counters.getUserFriends().increment(friendId);
         }
-        if (friend.getFriends() == null) {
-            friend.setFriends(new HashSet<>());
+        friendGraph.addEdge(userId, friendId);
+        // Один из пользователей мог быть удалён между проверкой и записью — откатываем связь
+        if (!userStorage.existsUser(userId) || !userStorage.existsUser(friendId)) {
+            detachFriend(userId, friendId);
+            detachFriend(friendId, userId);
+            throw new NotFoundException("Пользователь удалён во время добавления в друзья");
         }
+    }
 
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
+    public List<User> getFriends(Long userId) {
+        return visibleFriendIds(userStorage.getUserById(userId)).stream()
+                .map(this::findUser)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
 
-        userStorage.updateUser(user);
-        userStorage.updateUser(friend);
-        ;
+    public CompletableFuture<List<User>> getFriendsAsync(Long userId) {
+        return storageExecutor.supply(() -> userStorage.getUserById(userId))
+                .thenCompose(user -> loadUsers(visibleFriendIds(user)));
     }
 
-    public List<User> getFriends(Long userId) {
+    public List<Long> getFriendIds(Long userId, int from, int size) {
         User user = userStorage.getUserById(userId);
         if (user.getFriends() == null) {
             return List.of();
         }
-        return user.getFriends().stream()
-                .map(userStorage::getUserById)
-                .collect(Collectors.toList());
+        return IdPages.page(user.getFriends(), from, size, this::isVisible);
+    }
+
+    // Фильмы, ожидающие фоновой очистки после удаления, в выдачу не попадают
+    public List<Long> getLikedFilms(Long userId, int from, int size) {
+        requireUser(userId);
+        return userLikesIndex.getLikedFilms(userId, from, size, filmId -> !tombstones.isFilmDeleted(filmId));
     }
 
     public List<User> getCommonFriends(Long userId1, Long userId2) {
         User user1 = userStorage.getUserById(userId1);
         User user2 = userStorage.getUserById(userId2);
 
+        return commonFriendIds(user1, user2).stream()
+                .map(this::findUser)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    public CompletableFuture<List<User>> getCommonFriendsAsync(Long userId1, Long userId2) {
+        return storageExecutor.supply(() -> userStorage.getUserById(userId1))
+                .thenCombine(storageExecutor.supply(() -> userStorage.getUserById(userId2)), this::commonFriendIds)
+                .thenCompose(this::loadUsers);
+    }
+
+    public void removeFriend(Long userId, Long friendId) {
+        requireUser(userId);
+        requireUser(friendId);
+        unlink(userId, friendId);
+    }
+
+    public CompletableFuture<Void> removeFriendAsync(Long userId, Long friendId) {
+        return bothExist(userId, friendId)
+                .thenRunAsync(() -> unlink(userId, friendId), storageExecutor.getExecutor());
+    }
+
+    private void unlink(Long userId, Long friendId) {
+        detachFriend(userId, friendId);
+        detachFriend(friendId, userId);
+    }
+
+    public Separation getSeparation(Long fromId, Long toId) {
+        requireUser(fromId);
+        requireUser(toId);
+        int degrees = graphTraversal.degreesOfSeparation(fromId, toId);
+        return Separation.builder()
+                .fromId(fromId)
+                .toId(toId)
+                .reachable(degrees >= 0)
+                .degrees(degrees >= 0 ? degrees : null)
+                .build();
+    }
+
+    public NetworkSize getNetworkSize(Long userId, int depth) {
+        requireUser(userId);
+        return NetworkSize.builder()
+                .userId(userId)
+                .depth(depth)
+                .size(graphTraversal.networkSize(userId, depth))
+                .build();
+    }
+
+    // Собственные связи удалённого пользователя исчезли вместе с ним, поэтому их событие публикует каскад,
+    // а обратную связь снимает хранилище и публикует само
+    private void detachDeletedFriend(Long userId, Long friendId) {
+        changeFeed.publish(ChangeType.FRIEND_REMOVED, userId, friendId);
+        detachFriend(friendId, userId);
+    }
+
+    private void detachFriend(Long friendId, Long userId) {
+        friendGraph.removeEdge(userId, friendId);
+        try {
+            if (userStorage.removeFriend(friendId, userId)) {
+                counters.getUserFriends().decrement(friendId);
+            }
+        } catch (NotFoundException e) {
+            log.debug("Пользователь {} уже удалён, связь с {} не снимается", friendId, userId);
+        }
+    }
+
+    private void detachLike(Long filmId, Long userId) {
+        try {
+            if (filmStorage.removeLike(filmId, userId)) {
+                counters.getFilmLikes().decrement(filmId);
+                popularFilmsCache.recordLikeChange();
+            }
+        } catch (NotFoundException e) {
+            log.debug("Фильм {} уже удалён, лайк пользователя {} не снимается", filmId, userId);
+        }
+    }
+
+    private CompletableFuture<Void> bothExist(Long userId, Long otherId) {
+        return CompletableFuture.allOf(
+                storageExecutor.run(() -> requireUser(userId)),
+                storageExecutor.run(() -> requireUser(otherId)));
+    }
+
+    private CompletableFuture<List<User>> loadUsers(List<Long> ids) {
+        return storageExecutor.supplyBatched(ids, batch -> batch.stream()
+                .map(this::findUser)
+                .flatMap(Optional::stream)
+                .toList());
+    }
+
+    private List<Long> visibleFriendIds(User user) {
+        if (user.getFriends() == null) {
+            return List.of();
+        }
+        return user.getFriends().stream()
+                .filter(this::isVisible)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> commonFriendIds(User user1, User user2) {
         Set<Long> friends1 = user1.getFriends() != null ? user1.getFriends() : Set.of();
         Set<Long> friends2 = user2.getFriends() != null ? user2.getFriends() : Set.of();
-
         return friends1.stream()
                 .filter(friends2::contains)
-                .map(userStorage::getUserById)
+                .filter(this::isVisible)
                 .collect(Collectors.toList());
     }
 
-    public void removeFriend(Long userId, Long friendId) {
-        User user = userStorage.getUserById(userId);
-        User friend = userStorage.getUserById(friendId);
+    private boolean isVisible(Long userId) {
+        return !tombstones.isUserDeleted(userId);
+    }
 
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>());
+    // Проверка существования не читает пользователя и не собирает его список друзей
+    private void requireUser(Long id) {
+        if (!userStorage.existsUser(id)) {
+            throw new NotFoundException("Пользователь", id);
         }
-        if (friend.getFriends() == null) {
-            friend.setFriends(new HashSet<>());
+    }
+
+    private Optional<User> findUser(Long id) {
+        try {
+            return Optional.of(userStorage.getUserById(id));
+        } catch (NotFoundException e) {
+            return Optional.empty();
         }
+    }
 
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
+    private UserSummary toSummary(User user) {
+        return UserSummary.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName())
+                .birthday(user.getBirthday())
+                .friendsCount((int) counters.getUserFriends().get(user.getId()))
+                .build();
+    }
 
-        userStorage.updateUser(user);
-        userStorage.updateUser(friend);
+    // Правила те же, что при создании: ограничения модели и доменные проверки
+    public ValidationReport startValidation() {
+        return userValidationRunner.start(userStorage.getAllUsers(), this::checkRules);
+    }
+
+    public ValidationReport getValidation(long id) {
+        return userValidationRunner.getReport(id);
+    }
+
+    private void checkRules(User user) {
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new DomainValidationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .collect(Collectors.joining("; ")));
+        }
+        validateUser(user);
     }
 
     private void validateUser(User user) {
         if (user.getBirthday() != null && user.getBirthday().isAfter(LocalDate.now())) {
-            throw new ValidationException("Birthday не может быть в будущем");
+            throw new DomainValidationException("Birthday не может быть в будущем");
         }
     }
 
@@ -125,18 +371,46 @@ public class UserService {
     }
 
     private void validateUnique(User user) {
-        userStorage.getAllUsers().stream()
-                .filter(existing -> !existing.getId().equals(user.getId()))
-                .forEach(existing -> {
-                    if (existing.getEmail().equalsIgnoreCase(user.getEmail())) {
-                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Email уже используется");
-                    }
-                    if (existing.getLogin().equalsIgnoreCase(user.getLogin())) {
-                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Логин уже используется");
-                    }
+        userStorage.findIdByEmail(user.getEmail())
+                .filter(id -> !id.equals(user.getId()))
+                .ifPresent(id -> {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Email уже используется");
+                });
+        userStorage.findIdByLogin(user.getLogin())
+                .filter(id -> !id.equals(user.getId()))
+                .ifPresent(id -> {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Логин уже используется");
                 });
     }
 
+    private <T> T withUniqueKeys(User user, Supplier<T> action) {
+        int email = Math.floorMod(normalize(user.getEmail()).hashCode(), uniqueKeyLocks.length);
+        int login = Math.floorMod(normalize(user.getLogin()).hashCode(), uniqueKeyLocks.length);
+        // Полосы берутся по возрастанию номера, чтобы встречные запросы не заблокировали друг друга
+        ReentrantLock first = uniqueKeyLocks[Math.min(email, login)];
+        ReentrantLock second = uniqueKeyLocks[Math.max(email, login)];
+        first.lock();
+        second.lock();
+        try {
+            return action.get();
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static ReentrantLock[] newLocks(int count) {
+        ReentrantLock[] locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
     private void validateUpdateUnique(User user, User existingUser) {
         if (!user.getEmail().equalsIgnoreCase(existingUser.getEmail())) {
             validateUnique(user);
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Отсортированное множество ID в плотном массиве: 4 байта на элемент, пока все ID помещаются в int,
+ * затем 8 байт. Вставка и удаление — двоичный поиск и сдвиг, страница читается без копирования всего набора.
+ */
+class CompactIdSet {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ints = new int[INITIAL_CAPACITY];
+    private long[] longs;
+    private int size;
+
+    synchronized boolean add(long id) {
+        int position = search(id);
+        if (position >= 0) {
+            return false;
+        }
+        if (longs == null && (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE)) {
+            widen();
+        }
+        int insertion = -position - 1;
+        ensureCapacity(size + 1);
+        if (longs != null) {
+            System.arraycopy(longs, insertion, longs, insertion + 1, size - insertion);
+            longs[insertion] = id;
+        } else {
+            System.arraycopy(ints, insertion, ints, insertion + 1, size - insertion);
+            ints[insertion] = (int) id;
+        }
+        size++;
+        return true;
+    }
+
+    synchronized boolean remove(long id) {
+        int position = search(id);
+        if (position < 0) {
+            return false;
+        }
+        if (longs != null) {
+            System.arraycopy(longs, position + 1, longs, position, size - position - 1);
+        } else {
+            System.arraycopy(ints, position + 1, ints, position, size - position - 1);
+        }
+        size--;
+        shrinkIfSparse();
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long[] toArray() {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    // Пропускает from видимых ID и возвращает не более limit следующих, по возрастанию
+    synchronized List<Long> page(int from, int limit, LongPredicate visible) {
+        List<Long> result = new ArrayList<>(Math.min(limit, size));
+        int skipped = 0;
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            long id = get(i);
+            if (!visible.test(id)) {
+                continue;
+            }
+            if (skipped < from) {
+                skipped++;
+            } else {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private long get(int index) {
+        return longs != null ? longs[index] : ints[index];
+    }
+
+    private int search(long id) {
+        if (longs != null) {
+            return Arrays.binarySearch(longs, 0, size, id);
+        }
+        if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+            return -(size + 1) + (id < 0 ? size : 0);
+        }
+        return Arrays.binarySearch(ints, 0, size, (int) id);
+    }
+
+    private void widen() {
+        longs = new long[Math.max(ints.length, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            longs[i] = ints[i];
+        }
+        ints = null;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = longs != null ? longs.length : ints.length;
+        if (required <= capacity) {
+            return;
+        }
+        int grown = Math.max(required, capacity + (capacity >> 1));
+        if (longs != null) {
+            longs = Arrays.copyOf(longs, grown);
+        } else {
+            ints = Arrays.copyOf(ints, grown);
+        }
+    }
+
+    private void shrinkIfSparse() {
+        int capacity = longs != null ? longs.length : ints.length;
+        if (capacity > INITIAL_CAPACITY && size < capacity / 4) {
+            int shrunk = Math.max(INITIAL_CAPACITY, size * 2);
+            if (longs != null) {
+                longs = Arrays.copyOf(longs, shrunk);
+            } else {
+                ints = Arrays.copyOf(ints, shrunk);
+            }
+        }
+    }
+}
@@ -4,16 +4,39 @@ import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
 
 public interface FilmStorage {
 
     Optional<Film> getFilmById(Long id);
 
+    /**
+     * Проверка существования без чтения фильма: набор лайков при этом не собирается.
+     */
+    boolean existsFilm(Long id);
+
     Film addFilm(Film film);
 
+    /**
+     * Обновляет фильм, если его версия в хранилище совпадает с film.getVersion().
+     * Лайки при этом не перезаписываются: они меняются только через addLike/removeLike.
+     */
     Film updateFilm(Film film);
 
-    void deleteFilm(Long id);
+    boolean addLike(Long filmId, Long userId);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    /**
+     * Удаляет фильм и возвращает его последнее состояние. Лайки в нём окончательные:
+     * после удаления addLike для этого фильма завершается FilmNotFoundException.
+     */
+    Optional<Film> deleteFilm(Long id);
 
     Collection<Film> getAllFilms();
+
+    /**
+     * Передаёт в action ID и число лайков каждого фильма, не собирая ни фильмы, ни наборы лайков.
+     */
+    void forEachLikeCount(ObjIntConsumer<Long> action);
 }
@@ -1,56 +1,142 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeType;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
 
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "filmorate.storage", name = "type", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long nextId = 1;
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final ChangeFeed changeFeed;
+    private final AtomicLong nextId = new AtomicLong(1);
 
     @Override
     public Collection<Film> getAllFilms() {
         return films.values();
     }
 
+    @Override
+    public void forEachLikeCount(ObjIntConsumer<Long> action) {
+        films.forEach((id, film) -> action.accept(id, film.getLikes() != null ? film.getLikes().size() : 0));
+    }
+
     @Override
     public Film addFilm(Film film) {
-        if (film.getLikes() == null) {
-            film.setLikes(new HashSet<>());
+        Set<Long> likes = ConcurrentHashMap.newKeySet();
+        if (film.getLikes() != null) {
+            likes.addAll(film.getLikes());
         }
+        film.setLikes(likes);
         film.setId(generateNextId());
-        films.put(film.getId(), film);
+        film.setVersion(1L);
+        // Номер события выдаётся внутри compute, а в ленту оно попадает после: фильм к этому моменту уже виден
+        long[] sequence = new long[1];
+        films.compute(film.getId(), (id, absent) -> {
+            sequence[0] = changeFeed.claim();
+            return film;
+        });
+        changeFeed.publish(sequence[0], ChangeType.FILM_CREATED, film.getId());
         return film;
     }
 
     @Override
     public Film updateFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
-            String errorMessage = String.format("Film with id %d not found", film.getId());
-            log.error(errorMessage);
-            throw new FilmNotFoundException(errorMessage);
-        }
-        films.put(film.getId(), film);
+        long[] sequence = new long[1];
+        films.compute(film.getId(), (id, current) -> {
+            if (current == null) {
+                throw new FilmNotFoundException("Film with id " + id + " not found");
+            }
+            if (!current.getVersion().equals(film.getVersion())) {
+                throw new VersionConflictException(String.format(
+                        "Фильм с id=%d изменён: версия %d, ожидалась %d", id, current.getVersion(), film.getVersion()));
+            }
+            film.setLikes(current.getLikes());
+            film.setVersion(current.getVersion() + 1);
+            sequence[0] = changeFeed.claim();
+            return film;
+        });
+        changeFeed.publish(sequence[0], ChangeType.FILM_UPDATED, film.getId());
         log.info("Film updated. ID: {}", film.getId());
         return film;
     }
 
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        Set<Long> likes = getExisting(filmId).getLikes();
+        // Набор лайков переживает обновления фильма, поэтому он и служит блокировкой для порядка событий;
+        // повторная проверка под ней не даёт лайку попасть в фильм, который уже удалён
+        synchronized (likes) {
+            getExisting(filmId);
+            if (!likes.add(userId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.LIKE_ADDED, filmId, userId);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        Set<Long> likes = getExisting(filmId).getLikes();
+        synchronized (likes) {
+            getExisting(filmId);
+            if (!likes.remove(userId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.LIKE_REMOVED, filmId, userId);
+            return true;
+        }
+    }
+
     @Override
     public Optional<Film> getFilmById(Long id) {
         return Optional.ofNullable(films.get(id));
     }
 
     @Override
-    public void deleteFilm(Long id) {
-        films.remove(id);
+    public boolean existsFilm(Long id) {
+        return films.containsKey(id);
+    }
+
+    @Override
+    public Optional<Film> deleteFilm(Long id) {
+        Film existing = films.get(id);
+        if (existing == null) {
+            return Optional.empty();
+        }
+        synchronized (existing.getLikes()) {
+            Film removed = films.remove(id);
+            if (removed == null) {
+                return Optional.empty();
+            }
+            changeFeed.publish(ChangeType.FILM_DELETED, id);
+            return Optional.of(removed);
+        }
+    }
+
+    private Film getExisting(Long id) {
+        Film film = films.get(id);
+        if (film == null) {
+            throw new FilmNotFoundException("Film with id " + id + " not found");
+        }
+        return film;
     }
 
     private long generateNextId() {
-        return nextId++;
+        return nextId.getAndIncrement();
     }
 }
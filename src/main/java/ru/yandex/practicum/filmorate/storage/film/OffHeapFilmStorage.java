@@ -0,0 +1,270 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapArena;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapCollection;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapLongArray;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapLongSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+import static ru.yandex.practicum.filmorate.storage.offheap.OffHeapRecords.*;
+
+/**
+ * Хранилище фильмов вне кучи: запись фиксированной раскладки плюс строки в UTF-8,
+ * лайки — OffHeapLongSet, индекс ID -> адрес — OffHeapLongArray.
+ * Объекты Film создаются только при чтении.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "filmorate.storage", name = "type", havingValue = "offheap")
+public class OffHeapFilmStorage implements FilmStorage {
+    private static final int CHUNK_SIZE = 64 << 20;
+    private static final int STRIPES = 64;
+
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int LIKES = 16;
+    private static final int RELEASE_DATE = 24;
+    private static final int DURATION = 28;
+    private static final int NAME_LENGTH = 32;
+    private static final int DESCRIPTION_LENGTH = 36;
+    private static final int DATA = 40;
+
+    private final OffHeapArena arena = new OffHeapArena(CHUNK_SIZE);
+    private final OffHeapLongArray index = new OffHeapLongArray();
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong count = new AtomicLong();
+    private final ChangeFeed changeFeed;
+
+    public OffHeapFilmStorage(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public Collection<Film> getAllFilms() {
+        return new OffHeapCollection<>(count::get, () -> nextId.get() - 1,
+                id -> getFilmById(id).orElse(null), this::deleteFilm);
+    }
+
+    @Override
+    public void forEachLikeCount(ObjIntConsumer<Long> action) {
+        long lastId = nextId.get() - 1;
+        for (long id = 1; id <= lastId; id++) {
+            int likes;
+            Lock lock = stripe(id).readLock();
+            lock.lock();
+            try {
+                long record = index.get(id);
+                if (record == 0) {
+                    continue;
+                }
+                likes = OffHeapLongSet.size(arena, arena.getLong(record, LIKES));
+            } finally {
+                lock.unlock();
+            }
+            action.accept(id, likes);
+        }
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Collection<Long> initialLikes = film.getLikes() != null ? film.getLikes() : Set.of();
+        requirePositiveIds(initialLikes, "ID пользователя в лайках");
+        long id = nextId.getAndIncrement();
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long likes = OffHeapLongSet.create(arena, initialLikes.size());
+            for (Long userId : initialLikes) {
+                likes = OffHeapLongSet.add(arena, likes, userId);
+            }
+            index.set(id, write(film, id, 1, likes));
+            count.incrementAndGet();
+            film.setLikes(OffHeapLongSet.toSet(arena, likes));
+            changeFeed.publish(ChangeType.FILM_CREATED, id);
+        } finally {
+            lock.unlock();
+        }
+        film.setId(id);
+        film.setVersion(1L);
+        return film;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        long id = film.getId();
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            if (record == 0) {
+                throw new FilmNotFoundException("Film with id " + id + " not found");
+            }
+            long version = arena.getLong(record, VERSION);
+            if (film.getVersion() == null || version != film.getVersion()) {
+                throw new VersionConflictException(String.format(
+                        "Фильм с id=%d изменён: версия %d, ожидалась %d", id, version, film.getVersion()));
+            }
+            long likes = arena.getLong(record, LIKES);
+            index.set(id, write(film, id, version + 1, likes));
+            arena.free(record, recordSize(record));
+            film.setVersion(version + 1);
+            film.setLikes(OffHeapLongSet.toSet(arena, likes));
+            changeFeed.publish(ChangeType.FILM_UPDATED, id);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Film updated. ID: {}", id);
+        return film;
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        Lock lock = stripe(filmId).writeLock();
+        lock.lock();
+        try {
+            long record = existingRecord(filmId);
+            long likes = arena.getLong(record, LIKES);
+            int before = OffHeapLongSet.size(arena, likes);
+            long grown = OffHeapLongSet.add(arena, likes, userId);
+            if (grown != likes) {
+                arena.putLong(record, LIKES, grown);
+            }
+            if (OffHeapLongSet.size(arena, grown) == before) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.LIKE_ADDED, filmId, userId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        Lock lock = stripe(filmId).writeLock();
+        lock.lock();
+        try {
+            if (!OffHeapLongSet.remove(arena, arena.getLong(existingRecord(filmId), LIKES), userId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.LIKE_REMOVED, filmId, userId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        Lock lock = stripe(id).readLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            return record == 0 ? Optional.empty() : Optional.of(read(record));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsFilm(Long id) {
+        Lock lock = stripe(id).readLock();
+        lock.lock();
+        try {
+            return index.get(id) != 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Film> deleteFilm(Long id) {
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            if (record == 0) {
+                return Optional.empty();
+            }
+            Film removed = read(record);
+            OffHeapLongSet.free(arena, arena.getLong(record, LIKES));
+            arena.free(record, recordSize(record));
+            index.set(id, 0);
+            count.decrementAndGet();
+            changeFeed.publish(ChangeType.FILM_DELETED, id);
+            return Optional.of(removed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getOffHeapBytes() {
+        return arena.getReservedBytes() + index.reservedBytes();
+    }
+
+    private long existingRecord(Long id) {
+        long record = index.get(id);
+        if (record == 0) {
+            throw new FilmNotFoundException("Film with id " + id + " not found");
+        }
+        return record;
+    }
+
+    private long write(Film film, long id, long version, long likes) {
+        byte[] name = encodeString(film.getName());
+        byte[] description = encodeString(film.getDescription());
+        int nameBytes = stringBytes(length(name));
+        long record = arena.allocate(DATA + nameBytes + stringBytes(length(description)));
+        arena.putLong(record, ID, id);
+        arena.putLong(record, VERSION, version);
+        arena.putLong(record, LIKES, likes);
+        arena.putInt(record, RELEASE_DATE, encodeDate(film.getReleaseDate()));
+        arena.putInt(record, DURATION, encodeInt(film.getDuration()));
+        arena.putInt(record, NAME_LENGTH, length(name));
+        arena.putInt(record, DESCRIPTION_LENGTH, length(description));
+        putString(arena, record, DATA, name);
+        putString(arena, record, DATA + nameBytes, description);
+        return record;
+    }
+
+    private Film read(long record) {
+        int nameLength = arena.getInt(record, NAME_LENGTH);
+        return Film.builder()
+                .id(arena.getLong(record, ID))
+                .version(arena.getLong(record, VERSION))
+                .name(getString(arena, record, DATA, nameLength))
+                .description(getString(arena, record, DATA + stringBytes(nameLength),
+                        arena.getInt(record, DESCRIPTION_LENGTH)))
+                .releaseDate(decodeDate(arena.getInt(record, RELEASE_DATE)))
+                .duration(decodeInt(arena.getInt(record, DURATION)))
+                .likes(OffHeapLongSet.toSet(arena, arena.getLong(record, LIKES)))
+                .build();
+    }
+
+    private int recordSize(long record) {
+        return DATA + stringBytes(arena.getInt(record, NAME_LENGTH))
+                + stringBytes(arena.getInt(record, DESCRIPTION_LENGTH));
+    }
+
+    private ReadWriteLock stripe(long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+}
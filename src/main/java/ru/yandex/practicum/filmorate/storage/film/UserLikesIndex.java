@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Обратный индекс лайков: пользователь -> фильмы, которые он лайкнул.
+ * Позволяет снять лайки удаляемого пользователя за O(его лайков), не перебирая все фильмы,
+ * и отдавать историю лайков постранично. Фильмы пользователя хранятся в {@link CompactIdSet}.
+ */
+@Component
+public class UserLikesIndex {
+    private final Map<Long, CompactIdSet> likedFilms = new ConcurrentHashMap<>();
+
+    public void add(Long userId, Long filmId) {
+        likedFilms.compute(userId, (id, films) -> {
+            CompactIdSet set = films != null ? films : new CompactIdSet();
+            set.add(filmId);
+            return set;
+        });
+    }
+
+    public void remove(Long userId, Long filmId) {
+        likedFilms.computeIfPresent(userId, (id, films) -> {
+            films.remove(filmId);
+            return films.size() == 0 ? null : films;
+        });
+    }
+
+    public long[] getLikedFilms(Long userId) {
+        CompactIdSet films = likedFilms.get(userId);
+        return films != null ? films.toArray() : new long[0];
+    }
+
+    public List<Long> getLikedFilms(Long userId, int from, int size, LongPredicate visible) {
+        CompactIdSet films = likedFilms.get(userId);
+        return films != null ? films.page(from, size, visible) : List.of();
+    }
+
+    public int countLikedFilms(Long userId) {
+        CompactIdSet films = likedFilms.get(userId);
+        return films != null ? films.size() : 0;
+    }
+
+    public void removeUser(Long userId) {
+        likedFilms.remove(userId);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Память вне кучи, нарезанная на direct ByteBuffer-чанки. Адрес — ((номер чанка + 1) << 31) | смещение,
+ * поэтому 0 никогда не выдаётся и означает "пусто". Размеры округляются до степени двойки, освобождённые блоки
+ * переиспользуются через списки свободных блоков по классам размера.
+ */
+public final class OffHeapArena {
+    private static final int OFFSET_BITS = 31;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int MIN_BLOCK = 16;
+
+    private final int chunkSize;
+    private final ArrayDeque<Long>[] freeLists;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int currentChunk = -1;
+    private int top;
+    private long reservedBytes;
+    private long usedBytes;
+
+    @SuppressWarnings("unchecked")
+    public OffHeapArena(int chunkSize) {
+        this.chunkSize = blockSize(chunkSize);
+        this.freeLists = new ArrayDeque[32];
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ArrayDeque<>();
+        }
+    }
+
+    public static int blockSize(int size) {
+        int block = Math.max(MIN_BLOCK, size);
+        return block == Integer.highestOneBit(block) ? block : Integer.highestOneBit(block) << 1;
+    }
+
+    public synchronized long allocate(int size) {
+        int block = blockSize(size);
+        int sizeClass = Integer.numberOfTrailingZeros(block);
+        Long reused = freeLists[sizeClass].poll();
+        long address;
+        if (reused != null) {
+            address = reused;
+        } else if (block > chunkSize) {
+            address = address(addChunk(block), 0);
+        } else {
+            if (currentChunk < 0 || top + block > chunkSize) {
+                currentChunk = addChunk(chunkSize);
+                top = 0;
+            }
+            address = address(currentChunk, top);
+            top += block;
+        }
+        usedBytes += block;
+        return address;
+    }
+
+    public synchronized void free(long address, int size) {
+        if (address == 0) {
+            return;
+        }
+        int block = blockSize(size);
+        freeLists[Integer.numberOfTrailingZeros(block)].push(address);
+        usedBytes -= block;
+    }
+
+    public long getLong(long address, int offset) {
+        return chunk(address).getLong(offset(address) + offset);
+    }
+
+    public void putLong(long address, int offset, long value) {
+        chunk(address).putLong(offset(address) + offset, value);
+    }
+
+    public int getInt(long address, int offset) {
+        return chunk(address).getInt(offset(address) + offset);
+    }
+
+    public void putInt(long address, int offset, int value) {
+        chunk(address).putInt(offset(address) + offset, value);
+    }
+
+    public void getBytes(long address, int offset, byte[] target) {
+        chunk(address).get(offset(address) + offset, target);
+    }
+
+    public void putBytes(long address, int offset, byte[] source) {
+        chunk(address).put(offset(address) + offset, source);
+    }
+
+    public void copy(long from, long to, int length) {
+        chunk(to).put(offset(to), chunk(from), offset(from), length);
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private int addChunk(int size) {
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        chunks = grown;
+        reservedBytes += size;
+        return grown.length - 1;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks[(int) (address >>> OFFSET_BITS) - 1];
+    }
+
+    private static int offset(long address) {
+        return (int) (address & OFFSET_MASK);
+    }
+
+    private static long address(int chunk, int offset) {
+        return ((long) (chunk + 1) << OFFSET_BITS) | offset;
+    }
+}
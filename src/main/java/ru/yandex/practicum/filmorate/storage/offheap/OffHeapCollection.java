@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Живое представление хранилища вне кучи: записи материализуются по одной при обходе
+ * ID от 1 до последнего выданного, поэтому копия всей коллекции в куче не создаётся.
+ */
+public final class OffHeapCollection<T> extends AbstractCollection<T> {
+    private final LongSupplier size;
+    private final LongSupplier lastId;
+    private final LongFunction<T> loader;
+    private final LongConsumer remover;
+
+    public OffHeapCollection(LongSupplier size, LongSupplier lastId, LongFunction<T> loader, LongConsumer remover) {
+        this.size = size;
+        this.lastId = lastId;
+        this.loader = loader;
+        this.remover = remover;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size.getAsLong());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        long last = lastId.getAsLong();
+        return new Iterator<>() {
+            private long cursor = 1;
+            private long returnedId = -1;
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && cursor <= last) {
+                    next = loader.apply(cursor++);
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T result = next;
+                next = null;
+                returnedId = cursor - 1;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                if (returnedId < 0) {
+                    throw new IllegalStateException();
+                }
+                remover.accept(returnedId);
+                returnedId = -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Индекс строкового ключа по его 64-битному хешу вне кучи (открытая адресация, линейное пробирование).
+ * Запись — пара [хеш, id], и у одного хеша может быть несколько записей: при коллизии ключи не вытесняют
+ * друг друга. Сам ключ здесь не хранится, поэтому find сверяет его по записи через переданную проверку.
+ * id 0 зарезервирован под пустой слот.
+ */
+public final class OffHeapHashIndex {
+    private static final int ENTRY = 2 * Long.BYTES;
+
+    private ByteBuffer table;
+    private int capacity;
+    private int size;
+
+    public OffHeapHashIndex(int initialCapacity) {
+        this.capacity = Math.max(16, OffHeapArena.blockSize(initialCapacity));
+        this.table = allocate(capacity);
+    }
+
+    /**
+     * Возвращает первый id с таким хешем, для которого ключ подтверждён проверкой, или 0.
+     * Проверка вызывается вне монитора индекса: она читает запись под блокировкой хранилища.
+     */
+    public long find(long hash, LongPredicate matches) {
+        for (long id : candidates(hash)) {
+            if (matches.test(id)) {
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    public synchronized void put(long hash, long id) {
+        if (id == 0) {
+            throw new IllegalArgumentException("id 0 зарезервирован");
+        }
+        for (int i = index(hash); ; i = next(i)) {
+            long current = table.getLong(i * ENTRY + Long.BYTES);
+            if (current == 0) {
+                break;
+            }
+            if (current == id && table.getLong(i * ENTRY) == hash) {
+                return;
+            }
+        }
+        if ((size + 1) * 4L > capacity * 3L) {
+            resize(capacity * 2);
+        }
+        insert(hash, id);
+        size++;
+    }
+
+    /**
+     * Удаляет только запись [hash, id]: записи других ключей с тем же хешем остаются.
+     */
+    public synchronized boolean remove(long hash, long id) {
+        int hole = index(hash);
+        while (true) {
+            long current = table.getLong(hole * ENTRY + Long.BYTES);
+            if (current == 0) {
+                return false;
+            }
+            if (current == id && table.getLong(hole * ENTRY) == hash) {
+                break;
+            }
+            hole = next(hole);
+        }
+        for (int j = next(hole); ; j = next(j)) {
+            long current = table.getLong(j * ENTRY + Long.BYTES);
+            if (current == 0) {
+                break;
+            }
+            int home = index(table.getLong(j * ENTRY));
+            // Запись j можно перенести в дыру, если её "домашний" слот не лежит в (hole, j]
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                table.putLong(hole * ENTRY, table.getLong(j * ENTRY));
+                table.putLong(hole * ENTRY + Long.BYTES, current);
+                hole = j;
+            }
+        }
+        table.putLong(hole * ENTRY, 0);
+        table.putLong(hole * ENTRY + Long.BYTES, 0);
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long reservedBytes() {
+        return (long) capacity * ENTRY;
+    }
+
+    private synchronized long[] candidates(long hash) {
+        long[] found = new long[1];
+        int count = 0;
+        for (int i = index(hash); ; i = next(i)) {
+            long id = table.getLong(i * ENTRY + Long.BYTES);
+            if (id == 0) {
+                return Arrays.copyOf(found, count);
+            }
+            if (table.getLong(i * ENTRY) == hash) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = id;
+            }
+        }
+    }
+
+    private void insert(long hash, long id) {
+        int i = index(hash);
+        while (table.getLong(i * ENTRY + Long.BYTES) != 0) {
+            i = next(i);
+        }
+        table.putLong(i * ENTRY, hash);
+        table.putLong(i * ENTRY + Long.BYTES, id);
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+        table = allocate(newCapacity);
+        capacity = newCapacity;
+        for (int i = 0; i < oldCapacity; i++) {
+            long id = old.getLong(i * ENTRY + Long.BYTES);
+            if (id != 0) {
+                insert(old.getLong(i * ENTRY), id);
+            }
+        }
+    }
+
+    private int next(int i) {
+        return (i + 1) & (capacity - 1);
+    }
+
+    private int index(long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (capacity - 1);
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * ENTRY).order(ByteOrder.nativeOrder());
+    }
+}
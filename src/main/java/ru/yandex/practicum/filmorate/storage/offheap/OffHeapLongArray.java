@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Разреженный массив long вне кучи, разбитый на страницы по 1M элементов.
+ * Используется как индекс ID -> адрес записи: ID выдаются последовательно, поэтому хеш не нужен.
+ */
+public final class OffHeapLongArray {
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile LongBuffer[] pages = new LongBuffer[0];
+
+    public long get(long index) {
+        LongBuffer[] current = pages;
+        int page = (int) (index >>> PAGE_SHIFT);
+        if (index < 0 || page >= current.length || current[page] == null) {
+            return 0;
+        }
+        return current[page].get((int) (index & PAGE_MASK));
+    }
+
+    public void set(long index, long value) {
+        page((int) (index >>> PAGE_SHIFT)).put((int) (index & PAGE_MASK), value);
+    }
+
+    public long reservedBytes() {
+        return Arrays.stream(pages).filter(p -> p != null).count() * PAGE_SIZE * Long.BYTES;
+    }
+
+    private LongBuffer page(int page) {
+        LongBuffer[] current = pages;
+        if (page < current.length && current[page] != null) {
+            return current[page];
+        }
+        synchronized (this) {
+            current = pages;
+            if (page >= current.length) {
+                current = Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+            }
+            if (current[page] == null) {
+                current[page] = ByteBuffer.allocateDirect(PAGE_SIZE * Long.BYTES)
+                        .order(ByteOrder.nativeOrder())
+                        .asLongBuffer();
+            }
+            pages = current;
+            return current[page];
+        }
+    }
+}
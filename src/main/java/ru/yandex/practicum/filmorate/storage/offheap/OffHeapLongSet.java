@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Множество положительных long в арене: открытая адресация с линейным пробированием
+ * и удалением сдвигом назад. Раскладка: [int capacity][int size][long slots...], 0 — пустой слот.
+ * Методы не потокобезопасны: вызывающий держит блокировку записи, которой принадлежит множество.
+ */
+public final class OffHeapLongSet {
+    private static final int CAPACITY = 0;
+    private static final int SIZE = 4;
+    private static final int SLOTS = 8;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private OffHeapLongSet() {
+    }
+
+    public static long create(OffHeapArena arena, int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        long set = arena.allocate(bytes(capacity));
+        arena.putInt(set, CAPACITY, capacity);
+        arena.putInt(set, SIZE, 0);
+        for (int i = 0; i < capacity; i++) {
+            arena.putLong(set, slot(i), 0);
+        }
+        return set;
+    }
+
+    public static void free(OffHeapArena arena, long set) {
+        if (set != 0) {
+            arena.free(set, bytes(arena.getInt(set, CAPACITY)));
+        }
+    }
+
+    public static int size(OffHeapArena arena, long set) {
+        return set == 0 ? 0 : arena.getInt(set, SIZE);
+    }
+
+    public static boolean contains(OffHeapArena arena, long set, long value) {
+        int capacity = arena.getInt(set, CAPACITY);
+        for (int i = index(value, capacity); ; i = (i + 1) & (capacity - 1)) {
+            long current = arena.getLong(set, slot(i));
+            if (current == 0) {
+                return false;
+            }
+            if (current == value) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Добавляет значение и возвращает адрес множества: при росте он меняется.
+     * Добавлено ли значение, видно по изменению size.
+     */
+    public static long add(OffHeapArena arena, long set, long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Значение должно быть положительным: " + value);
+        }
+        int capacity = arena.getInt(set, CAPACITY);
+        int size = arena.getInt(set, SIZE);
+        if ((size + 1) * 2 > capacity) {
+            if (contains(arena, set, value)) {
+                return set;
+            }
+            set = grow(arena, set, capacity * 2);
+            capacity *= 2;
+        }
+        for (int i = index(value, capacity); ; i = (i + 1) & (capacity - 1)) {
+            long current = arena.getLong(set, slot(i));
+            if (current == value) {
+                return set;
+            }
+            if (current == 0) {
+                arena.putLong(set, slot(i), value);
+                arena.putInt(set, SIZE, size + 1);
+                return set;
+            }
+        }
+    }
+
+    public static boolean remove(OffHeapArena arena, long set, long value) {
+        int capacity = arena.getInt(set, CAPACITY);
+        int mask = capacity - 1;
+        int i = index(value, capacity);
+        while (true) {
+            long current = arena.getLong(set, slot(i));
+            if (current == 0) {
+                return false;
+            }
+            if (current == value) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; ; j = (j + 1) & mask) {
+            long current = arena.getLong(set, slot(j));
+            if (current == 0) {
+                break;
+            }
+            int home = index(current, capacity);
+            // Элемент j можно перенести в дыру, если его "домашний" слот не лежит в (hole, j]
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                arena.putLong(set, slot(hole), current);
+                hole = j;
+            }
+        }
+        arena.putLong(set, slot(hole), 0);
+        arena.putInt(set, SIZE, arena.getInt(set, SIZE) - 1);
+        return true;
+    }
+
+    public static void forEach(OffHeapArena arena, long set, LongConsumer consumer) {
+        if (set == 0) {
+            return;
+        }
+        int capacity = arena.getInt(set, CAPACITY);
+        for (int i = 0; i < capacity; i++) {
+            long value = arena.getLong(set, slot(i));
+            if (value != 0) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    public static Set<Long> toSet(OffHeapArena arena, long set) {
+        Set<Long> result = new HashSet<>(Math.max(16, size(arena, set) * 2));
+        forEach(arena, set, result::add);
+        return result;
+    }
+
+    private static long grow(OffHeapArena arena, long set, int capacity) {
+        long grown = create(arena, capacity / 2);
+        forEach(arena, set, value -> add(arena, grown, value));
+        free(arena, set);
+        return grown;
+    }
+
+    private static int bytes(int capacity) {
+        return SLOTS + capacity * Long.BYTES;
+    }
+
+    private static int slot(int index) {
+        return SLOTS + index * Long.BYTES;
+    }
+
+    private static int index(long value, int capacity) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (capacity - 1);
+    }
+}
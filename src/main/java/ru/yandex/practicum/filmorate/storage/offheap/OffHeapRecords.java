@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Кодирование полей записей: даты хранятся как epochDay, строки — как UTF-8 с длиной,
+ * null — как отдельное значение-маркер.
+ */
+public final class OffHeapRecords {
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private OffHeapRecords() {
+    }
+
+    public static int encodeDate(LocalDate date) {
+        return date == null ? NULL_INT : Math.toIntExact(date.toEpochDay());
+    }
+
+    public static LocalDate decodeDate(int epochDay) {
+        return epochDay == NULL_INT ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public static int encodeInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    public static Integer decodeInt(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    public static byte[] encodeString(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static int length(byte[] encoded) {
+        return encoded == null ? -1 : encoded.length;
+    }
+
+    public static void putString(OffHeapArena arena, long address, int offset, byte[] encoded) {
+        if (encoded != null && encoded.length > 0) {
+            arena.putBytes(address, offset, encoded);
+        }
+    }
+
+    public static String getString(OffHeapArena arena, long address, int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        arena.getBytes(address, offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static int stringBytes(int length) {
+        return Math.max(length, 0);
+    }
+
+    // 0 в OffHeapLongSet означает пустой слот, поэтому ID из тела запроса проверяются до записи
+    public static void requirePositiveIds(Collection<Long> ids, String field) {
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new DomainValidationException(field + " должен быть положительным: " + id);
+            }
+        }
+    }
+
+    public static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h;
+    }
+}
@@ -1,36 +1,75 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeType;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "filmorate.storage", name = "type", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long nextInt = 1;
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final Map<String, Long> loginIndex = new ConcurrentHashMap<>();
+    private final ChangeFeed changeFeed;
+    private final AtomicLong nextInt = new AtomicLong(1);
 
     @Override
     public Collection<User> getAllUsers() {
         return users.values();
     }
 
+    @Override
+    public void forEachFriendCount(ObjIntConsumer<Long> action) {
+        users.forEach((id, user) -> action.accept(id, user.getFriends() != null ? user.getFriends().size() : 0));
+    }
+
     @Override
     public User addUser(User user) {
         user.setId(genNextId());
+        user.setVersion(1L);
         user.setName(noName(user));
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>());
+        Set<Long> friends = ConcurrentHashMap.newKeySet();
+        if (user.getFriends() != null) {
+            friends.addAll(user.getFriends());
         }
+        user.setFriends(friends);
 
-        users.put(user.getId(), user);
+        // Номер события выдаётся внутри compute, а в ленту оно попадает после: пользователь к этому моменту уже виден
+        long[] sequence = new long[1];
+        users.compute(user.getId(), (id, absent) -> {
+            sequence[0] = changeFeed.claim();
+            return user;
+        });
+        changeFeed.publish(sequence[0], ChangeType.USER_CREATED, user.getId());
+        index(user);
         return user;
     }
 
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        return findIndexed(emailIndex, email, User::getEmail);
+    }
+
+    @Override
+    public Optional<Long> findIdByLogin(String login) {
+        return findIndexed(loginIndex, login, User::getLogin);
+    }
+
     @Override
     public User getUserById(Long id) {
         User user = users.get(id);
@@ -40,32 +79,113 @@ public class InMemoryUserStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    public boolean existsUser(Long id) {
+        return users.containsKey(id);
+    }
+
     @Override
     public User updateUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            String errorMessage = String.format("User with id %d not found", user.getId());
-            log.error(errorMessage);
-            throw new UserNotFoundException(errorMessage);
-        }
         user.setName(getValidName(user));
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>()); // Инициализация при обновлении
-        }
-        users.put(user.getId(), user);
+        long[] sequence = new long[1];
+        users.compute(user.getId(), (id, current) -> {
+            if (current == null) {
+                throw new UserNotFoundException("User with id " + id + " not found");
+            }
+            if (!current.getVersion().equals(user.getVersion())) {
+                throw new VersionConflictException(String.format(
+                        "Пользователь с id=%d изменён: версия %d, ожидалась %d",
+                        id, current.getVersion(), user.getVersion()));
+            }
+            user.setFriends(current.getFriends());
+            user.setVersion(current.getVersion() + 1);
+            sequence[0] = changeFeed.claim();
+            return user;
+        });
+        changeFeed.publish(sequence[0], ChangeType.USER_UPDATED, user.getId());
+        index(user);
         return user;
     }
 
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        Set<Long> friends = getUserById(userId).getFriends();
+        // Набор друзей переживает обновления пользователя, поэтому он и служит блокировкой для порядка событий
+        synchronized (friends) {
+            if (!friends.add(friendId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.FRIEND_ADDED, userId, friendId);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        Set<Long> friends = getUserById(userId).getFriends();
+        synchronized (friends) {
+            if (!friends.remove(friendId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.FRIEND_REMOVED, userId, friendId);
+            return true;
+        }
+    }
+
     @Override
     public void deleteUser(Long id) {
-        users.remove(id);
+        User[] removed = new User[1];
+        long[] sequence = new long[1];
+        users.computeIfPresent(id, (key, current) -> {
+            removed[0] = current;
+            sequence[0] = changeFeed.claim();
+            return null;
+        });
+        if (removed[0] != null) {
+            changeFeed.publish(sequence[0], ChangeType.USER_DELETED, id);
+            emailIndex.remove(normalize(removed[0].getEmail()), id);
+            loginIndex.remove(normalize(removed[0].getLogin()), id);
+        }
     }
 
 
+    private void index(User user) {
+        if (user.getEmail() != null) {
+            emailIndex.put(normalize(user.getEmail()), user.getId());
+        }
+        if (user.getLogin() != null) {
+            loginIndex.put(normalize(user.getLogin()), user.getId());
+        }
+    }
+
+    // Записи индекса проверяются при чтении: пользователь мог сменить email/логин или быть удалён
+    private Optional<Long> findIndexed(Map<String, Long> index, String value, Function<User, String> field) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String key = normalize(value);
+        Long id = index.get(key);
+        if (id == null) {
+            return Optional.empty();
+        }
+        User user = users.get(id);
+        if (user == null || field.apply(user) == null || !normalize(field.apply(user)).equals(key)) {
+            index.remove(key, id);
+            return Optional.empty();
+        }
+        return Optional.of(id);
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
     private long genNextId() {
-        if (nextInt == Long.MAX_VALUE) {
+        long id = nextInt.getAndIncrement();
+        if (id == Long.MAX_VALUE) {
             throw new IllegalStateException("Достигнут максимум ID пользователей");
         }
-        return nextInt++;
+        return id;
     }
 
     private String noName(User user) {
@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapArena;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapCollection;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapLongArray;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapHashIndex;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapLongSet;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import static ru.yandex.practicum.filmorate.storage.offheap.OffHeapRecords.*;
+
+/**
+ * Хранилище пользователей вне кучи: запись фиксированной раскладки плюс строки в UTF-8,
+ * друзья — OffHeapLongSet, индексы email/логина — OffHeapHashIndex по 64-битному хешу.
+ * Коллизии хешей хранятся отдельными записями, а совпадение ключа сверяется по самой записи.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "filmorate.storage", name = "type", havingValue = "offheap")
+public class OffHeapUserStorage implements UserStorage {
+    private static final int CHUNK_SIZE = 64 << 20;
+    private static final int STRIPES = 64;
+
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int FRIENDS = 16;
+    private static final int BIRTHDAY = 24;
+    private static final int EMAIL_LENGTH = 28;
+    private static final int LOGIN_LENGTH = 32;
+    private static final int NAME_LENGTH = 36;
+    private static final int DATA = 40;
+
+    private final OffHeapArena arena = new OffHeapArena(CHUNK_SIZE);
+    private final OffHeapLongArray index = new OffHeapLongArray();
+    private final OffHeapHashIndex emailIndex = new OffHeapHashIndex(1024);
+    private final OffHeapHashIndex loginIndex = new OffHeapHashIndex(1024);
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong count = new AtomicLong();
+    private final ChangeFeed changeFeed;
+
+    public OffHeapUserStorage(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        return new OffHeapCollection<>(count::get, () -> nextId.get() - 1, this::findById, this::deleteUser);
+    }
+
+    @Override
+    public void forEachFriendCount(ObjIntConsumer<Long> action) {
+        long lastId = nextId.get() - 1;
+        for (long id = 1; id <= lastId; id++) {
+            int friends;
+            Lock lock = stripe(id).readLock();
+            lock.lock();
+            try {
+                long record = index.get(id);
+                if (record == 0) {
+                    continue;
+                }
+                friends = OffHeapLongSet.size(arena, arena.getLong(record, FRIENDS));
+            } finally {
+                lock.unlock();
+            }
+            action.accept(id, friends);
+        }
+    }
+
+    @Override
+    public User addUser(User user) {
+        Collection<Long> initialFriends = user.getFriends() != null ? user.getFriends() : Set.of();
+        requirePositiveIds(initialFriends, "ID друга");
+        long id = nextId.getAndIncrement();
+        user.setName(getValidName(user));
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long friends = OffHeapLongSet.create(arena, initialFriends.size());
+            for (Long friendId : initialFriends) {
+                friends = OffHeapLongSet.add(arena, friends, friendId);
+            }
+            index.set(id, write(user, id, 1, friends));
+            count.incrementAndGet();
+            user.setFriends(OffHeapLongSet.toSet(arena, friends));
+            changeFeed.publish(ChangeType.USER_CREATED, id);
+        } finally {
+            lock.unlock();
+        }
+        user.setId(id);
+        user.setVersion(1L);
+        reindex(emailIndex, id, null, user.getEmail());
+        reindex(loginIndex, id, null, user.getLogin());
+        return user;
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        return findIndexed(emailIndex, email, User::getEmail);
+    }
+
+    @Override
+    public Optional<Long> findIdByLogin(String login) {
+        return findIndexed(loginIndex, login, User::getLogin);
+    }
+
+    @Override
+    public User getUserById(Long id) {
+        User user = findById(id);
+        if (user == null) {
+            throw new NotFoundException("Пользователь", id);
+        }
+        return user;
+    }
+
+    @Override
+    public boolean existsUser(Long id) {
+        Lock lock = stripe(id).readLock();
+        lock.lock();
+        try {
+            return index.get(id) != 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public User updateUser(User user) {
+        long id = user.getId();
+        user.setName(getValidName(user));
+        String previousEmail;
+        String previousLogin;
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            if (record == 0) {
+                throw new UserNotFoundException("User with id " + id + " not found");
+            }
+            long version = arena.getLong(record, VERSION);
+            if (user.getVersion() == null || version != user.getVersion()) {
+                throw new VersionConflictException(String.format(
+                        "Пользователь с id=%d изменён: версия %d, ожидалась %d", id, version, user.getVersion()));
+            }
+            User previous = read(record);
+            previousEmail = previous.getEmail();
+            previousLogin = previous.getLogin();
+            long friends = arena.getLong(record, FRIENDS);
+            index.set(id, write(user, id, version + 1, friends));
+            arena.free(record, recordSize(record));
+            user.setVersion(version + 1);
+            user.setFriends(OffHeapLongSet.toSet(arena, friends));
+            changeFeed.publish(ChangeType.USER_UPDATED, id);
+        } finally {
+            lock.unlock();
+        }
+        reindex(emailIndex, id, previousEmail, user.getEmail());
+        reindex(loginIndex, id, previousLogin, user.getLogin());
+        return user;
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        Lock lock = stripe(userId).writeLock();
+        lock.lock();
+        try {
+            long record = existingRecord(userId);
+            long friends = arena.getLong(record, FRIENDS);
+            int before = OffHeapLongSet.size(arena, friends);
+            long grown = OffHeapLongSet.add(arena, friends, friendId);
+            if (grown != friends) {
+                arena.putLong(record, FRIENDS, grown);
+            }
+            if (OffHeapLongSet.size(arena, grown) == before) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.FRIEND_ADDED, userId, friendId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        Lock lock = stripe(userId).writeLock();
+        lock.lock();
+        try {
+            if (!OffHeapLongSet.remove(arena, arena.getLong(existingRecord(userId), FRIENDS), friendId)) {
+                return false;
+            }
+            changeFeed.publish(ChangeType.FRIEND_REMOVED, userId, friendId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        String email;
+        String login;
+        Lock lock = stripe(id).writeLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            if (record == 0) {
+                return;
+            }
+            User removed = read(record);
+            email = removed.getEmail();
+            login = removed.getLogin();
+            OffHeapLongSet.free(arena, arena.getLong(record, FRIENDS));
+            arena.free(record, recordSize(record));
+            index.set(id, 0);
+            count.decrementAndGet();
+            changeFeed.publish(ChangeType.USER_DELETED, id);
+        } finally {
+            lock.unlock();
+        }
+        reindex(emailIndex, id, email, null);
+        reindex(loginIndex, id, login, null);
+    }
+
+    public long getOffHeapBytes() {
+        return arena.getReservedBytes() + index.reservedBytes()
+                + emailIndex.reservedBytes() + loginIndex.reservedBytes();
+    }
+
+    private User findById(long id) {
+        Lock lock = stripe(id).readLock();
+        lock.lock();
+        try {
+            long record = index.get(id);
+            return record == 0 ? null : read(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long existingRecord(Long id) {
+        long record = index.get(id);
+        if (record == 0) {
+            throw new NotFoundException("Пользователь", id);
+        }
+        return record;
+    }
+
+    private Optional<Long> findIndexed(OffHeapHashIndex keys, String value, Function<User, String> field) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String key = normalize(value);
+        long id = keys.find(hash64(key), candidate -> {
+            User user = findById(candidate);
+            return user != null && field.apply(user) != null && normalize(field.apply(user)).equals(key);
+        });
+        return id == 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    // Новая запись добавляется раньше, чем снимается старая, а неизменённый ключ не трогается вовсе:
+    // иначе в промежутке параллельная проверка уникальности не увидела бы занятый email или логин
+    private void reindex(OffHeapHashIndex keys, long id, String previous, String current) {
+        long previousHash = previous == null ? 0 : hash64(normalize(previous));
+        long currentHash = current == null ? 0 : hash64(normalize(current));
+        if (previousHash == currentHash) {
+            return;
+        }
+        if (currentHash != 0) {
+            keys.put(currentHash, id);
+        }
+        if (previousHash != 0) {
+            keys.remove(previousHash, id);
+        }
+    }
+
+    private long write(User user, long id, long version, long friends) {
+        byte[] email = encodeString(user.getEmail());
+        byte[] login = encodeString(user.getLogin());
+        byte[] name = encodeString(user.getName());
+        int emailBytes = stringBytes(length(email));
+        int loginBytes = stringBytes(length(login));
+        long record = arena.allocate(DATA + emailBytes + loginBytes + stringBytes(length(name)));
+        arena.putLong(record, ID, id);
+        arena.putLong(record, VERSION, version);
+        arena.putLong(record, FRIENDS, friends);
+        arena.putInt(record, BIRTHDAY, encodeDate(user.getBirthday()));
+        arena.putInt(record, EMAIL_LENGTH, length(email));
+        arena.putInt(record, LOGIN_LENGTH, length(login));
+        arena.putInt(record, NAME_LENGTH, length(name));
+        putString(arena, record, DATA, email);
+        putString(arena, record, DATA + emailBytes, login);
+        putString(arena, record, DATA + emailBytes + loginBytes, name);
+        return record;
+    }
+
+    private User read(long record) {
+        int emailLength = arena.getInt(record, EMAIL_LENGTH);
+        int loginLength = arena.getInt(record, LOGIN_LENGTH);
+        int loginOffset = DATA + stringBytes(emailLength);
+        int nameOffset = loginOffset + stringBytes(loginLength);
+        return User.builder()
+                .id(arena.getLong(record, ID))
+                .version(arena.getLong(record, VERSION))
+                .email(getString(arena, record, DATA, emailLength))
+                .login(getString(arena, record, loginOffset, loginLength))
+                .name(getString(arena, record, nameOffset, arena.getInt(record, NAME_LENGTH)))
+                .birthday(decodeDate(arena.getInt(record, BIRTHDAY)))
+                .friends(OffHeapLongSet.toSet(arena, arena.getLong(record, FRIENDS)))
+                .build();
+    }
+
+    private int recordSize(long record) {
+        return DATA + stringBytes(arena.getInt(record, EMAIL_LENGTH))
+                + stringBytes(arena.getInt(record, LOGIN_LENGTH))
+                + stringBytes(arena.getInt(record, NAME_LENGTH));
+    }
+
+    private ReadWriteLock stripe(long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private String getValidName(User user) {
+        return (user.getName() == null || user.getName().isBlank()) ? user.getLogin() : user.getName();
+    }
+}
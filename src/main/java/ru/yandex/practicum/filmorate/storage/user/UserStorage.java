@@ -4,6 +4,8 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.Optional;
+import java.util.function.ObjIntConsumer;
 
 
 public interface UserStorage {
@@ -13,7 +15,29 @@ public interface UserStorage {
 
     User getUserById(Long id) throws NotFoundException;
 
+    /**
+     * Проверка существования без чтения пользователя: список друзей при этом не собирается.
+     */
+    boolean existsUser(Long id);
+
+    /**
+     * Обновляет пользователя, если его версия в хранилище совпадает с user.getVersion().
+     * Список друзей при этом не перезаписывается: он меняется только через addFriend/removeFriend.
+     */
     User updateUser(User user);
 
+    boolean addFriend(Long userId, Long friendId);
+
+    boolean removeFriend(Long userId, Long friendId);
+
     void deleteUser(Long id);
+
+    Optional<Long> findIdByEmail(String email);
+
+    Optional<Long> findIdByLogin(String login);
+
+    /**
+     * Передаёт в action ID и число друзей каждого пользователя, не собирая ни пользователей, ни списки друзей.
+     */
+    void forEachFriendCount(ObjIntConsumer<Long> action);
 }
@@ -0,0 +1,283 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.ConflictType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.ValidationConflict;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+import ru.yandex.practicum.filmorate.model.ValidationStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Проверка всей базы пользователей в три параллельных прохода:
+ * правила и нормализация ключей по блокам с подсчётом размеров хеш-разделов,
+ * раскладка индексов по разделам email и логина без блокировок (у каждого блока свои сдвиги)
+ * и поиск дубликатов внутри каждого раздела отдельной небольшой хеш-таблицей.
+ */
+@Slf4j
+public class UserValidationJob {
+    private final long id;
+    private final Collection<User> source;
+    private final Consumer<User> rules;
+    private final ForkJoinPool pool;
+    private final int partitions;
+    private final int partitionShift;
+    private final int chunkSize;
+    private final int maxReportedConflicts;
+    private final long startedAt = System.nanoTime();
+
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder scattered = new LongAdder();
+    private final AtomicInteger partitionsChecked = new AtomicInteger();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder emailConflicts = new LongAdder();
+    private final LongAdder loginConflicts = new LongAdder();
+    private final AtomicInteger reported = new AtomicInteger();
+    private final Queue<ValidationConflict> conflicts = new ConcurrentLinkedQueue<>();
+
+    private volatile ValidationStatus status = ValidationStatus.RUNNING;
+    private volatile long total;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public UserValidationJob(long id, Collection<User> source, Consumer<User> rules,
+                             ValidationProperties properties, ForkJoinPool pool) {
+        this.id = id;
+        this.source = source;
+        this.rules = rules;
+        this.pool = pool;
+        this.partitions = ceilPowerOfTwo(properties.getPartitions());
+        this.partitionShift = Integer.numberOfLeadingZeros(partitions) + 1;
+        this.chunkSize = Math.max(properties.getChunkSize(), 1);
+        this.maxReportedConflicts = properties.getMaxReportedConflicts();
+        this.total = source.size();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean isRunning() {
+        return status == ValidationStatus.RUNNING;
+    }
+
+    public void run() {
+        ValidationStatus result = ValidationStatus.COMPLETED;
+        try {
+            check(source.toArray(new User[0]));
+        } catch (RuntimeException e) {
+            log.warn("Проверка пользователей {} прервана", id, e);
+            error = e.getMessage();
+            result = ValidationStatus.FAILED;
+        }
+        finishedAt = System.nanoTime();
+        status = result;
+        log.info("Проверка пользователей {}: {} записей, некорректных {}, дубликатов email {}, логинов {}, {} мс",
+                id, total, invalid.sum(), emailConflicts.sum(), loginConflicts.sum(), elapsedMillis());
+    }
+
+    public ValidationReport report() {
+        long count = total;
+        double progress = count == 0
+                ? (isRunning() ? 0 : 1)
+                : ((double) validated.sum() / count + (double) scattered.sum() / count
+                + (double) partitionsChecked.get() / (2 * partitions)) / 3;
+        return ValidationReport.builder()
+                .id(id)
+                .status(status)
+                .total(count)
+                .validated(validated.sum())
+                .partitionsChecked(partitionsChecked.get())
+                .partitions(2 * partitions)
+                .progress(status == ValidationStatus.COMPLETED ? 1 : progress)
+                .invalid(invalid.sum())
+                .emailConflicts(emailConflicts.sum())
+                .loginConflicts(loginConflicts.sum())
+                .elapsedMillis(elapsedMillis())
+                .error(error)
+                .conflicts(new ArrayList<>(conflicts))
+                .build();
+    }
+
+    private void check(User[] users) {
+        int n = users.length;
+        total = n;
+        String[] emails = new String[n];
+        String[] logins = new String[n];
+        int chunks = (int) (((long) n + chunkSize - 1) / chunkSize);
+        int[][] emailCursors = new int[chunks][];
+        int[][] loginCursors = new int[chunks][];
+
+        forEach(chunks, chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(n, from + chunkSize);
+            int[] emailCounts = new int[partitions];
+            int[] loginCounts = new int[partitions];
+            for (int i = from; i < to; i++) {
+                User user = users[i];
+                try {
+                    rules.accept(user);
+                } catch (ValidationException e) {
+                    invalid.increment();
+                    addConflict(ConflictType.INVALID, e.getMessage(), List.of(user.getId()));
+                }
+                emails[i] = normalize(user.getEmail());
+                logins[i] = normalize(user.getLogin());
+                if (emails[i] != null) {
+                    emailCounts[partition(emails[i])]++;
+                }
+                if (logins[i] != null) {
+                    loginCounts[partition(logins[i])]++;
+                }
+            }
+            emailCursors[chunk] = emailCounts;
+            loginCursors[chunk] = loginCounts;
+            validated.add(to - from);
+        });
+
+        // Размеры разделов превращаются в начальные позиции каждого блока внутри раздела
+        int[] emailStarts = toCursors(emailCursors);
+        int[] loginStarts = toCursors(loginCursors);
+        int[] emailOrder = new int[emailStarts[partitions]];
+        int[] loginOrder = new int[loginStarts[partitions]];
+
+        forEach(chunks, chunk -> {
+            int from = chunk * chunkSize;
+            int to = Math.min(n, from + chunkSize);
+            int[] emailCursor = emailCursors[chunk];
+            int[] loginCursor = loginCursors[chunk];
+            for (int i = from; i < to; i++) {
+                if (emails[i] != null) {
+                    emailOrder[emailCursor[partition(emails[i])]++] = i;
+                }
+                if (logins[i] != null) {
+                    loginOrder[loginCursor[partition(logins[i])]++] = i;
+                }
+            }
+            scattered.add(to - from);
+        });
+
+        forEach(2 * partitions, task -> {
+            if (task < partitions) {
+                findDuplicates(ConflictType.EMAIL, users, emails, emailOrder,
+                        emailStarts[task], emailStarts[task + 1], emailConflicts);
+            } else {
+                int partition = task - partitions;
+                findDuplicates(ConflictType.LOGIN, users, logins, loginOrder,
+                        loginStarts[partition], loginStarts[partition + 1], loginConflicts);
+            }
+            partitionsChecked.incrementAndGet();
+        });
+    }
+
+    private int[] toCursors(int[][] counts) {
+        int[] starts = new int[partitions + 1];
+        int position = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            starts[partition] = position;
+            for (int[] chunk : counts) {
+                int size = chunk[partition];
+                chunk[partition] = position;
+                position += size;
+            }
+        }
+        starts[partitions] = position;
+        return starts;
+    }
+
+    // Индексы внутри раздела идут по возрастанию, поэтому первым в группе всегда оказывается более ранний пользователь.
+    // Таблица с открытой адресацией хранит индексы пользователей и обходится без упаковки и узлов HashMap
+    private void findDuplicates(ConflictType type, User[] users, String[] keys, int[] order,
+                                int from, int to, LongAdder counter) {
+        int[] table = new int[Math.max(16, Integer.highestOneBit(Math.max(1, to - from)) << 2)];
+        int mask = table.length - 1;
+        Map<String, List<Long>> duplicates = null;
+        for (int k = from; k < to; k++) {
+            int index = order[k];
+            String key = keys[index];
+            int slot = key.hashCode() & mask;
+            while (table[slot] != 0 && !keys[table[slot] - 1].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == 0) {
+                table[slot] = index + 1;
+                continue;
+            }
+            if (duplicates == null) {
+                duplicates = new LinkedHashMap<>();
+            }
+            int first = table[slot] - 1;
+            duplicates.computeIfAbsent(key, ignored -> new ArrayList<>(List.of(users[first].getId())))
+                    .add(users[index].getId());
+        }
+        if (duplicates != null) {
+            counter.add(duplicates.size());
+            duplicates.forEach((key, ids) -> addConflict(type, key, ids));
+        }
+    }
+
+    private void addConflict(ConflictType type, String value, List<Long> userIds) {
+        if (reported.getAndIncrement() < maxReportedConflicts) {
+            conflicts.add(ValidationConflict.builder()
+                    .type(type)
+                    .value(value)
+                    .userIds(new ArrayList<>(userIds))
+                    .build());
+        }
+    }
+
+    private void forEach(int count, IntConsumer action) {
+        if (count > 0) {
+            pool.invoke(new RangeTask(0, count, action));
+        }
+    }
+
+    // Старшие биты мультипликативного хеша: младшие биты того же hashCode адресуют таблицу внутри раздела
+    private int partition(String key) {
+        return (key.hashCode() * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private long elapsedMillis() {
+        long end = isRunning() ? System.nanoTime() : finishedAt;
+        return (end - startedAt) / 1_000_000;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        return value <= 2 ? 2 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                action.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+        }
+    }
+}
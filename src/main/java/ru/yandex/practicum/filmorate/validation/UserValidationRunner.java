@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Запускает проверки пользователей в собственном ForkJoinPool, чтобы многосекундный проход по всей базе
+ * не занимал общий пул, на котором раскрываются большие фронты графа друзей.
+ * Одновременно выполняется одна проверка, хранится отчёт последней.
+ */
+@Slf4j
+@Component
+public class UserValidationRunner {
+    private final ValidationProperties properties;
+    private final ForkJoinPool pool;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private volatile UserValidationJob current;
+
+    public UserValidationRunner(ValidationProperties properties) {
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Повторный запуск во время проверки возвращает уже идущую
+    public synchronized ValidationReport start(Collection<User> users, Consumer<User> rules) {
+        UserValidationJob running = current;
+        if (running != null && running.isRunning()) {
+            return running.report();
+        }
+        UserValidationJob job = new UserValidationJob(nextId.getAndIncrement(), users, rules, properties, pool);
+        current = job;
+        log.info("Запущена проверка пользователей {}: {} записей", job.getId(), users.size());
+        pool.execute(job::run);
+        return job.report();
+    }
+
+    public ValidationReport getReport(long id) {
+        UserValidationJob job = current;
+        if (job == null || job.getId() != id) {
+            throw new NotFoundException("Проверка с id=" + id + " не найдена");
+        }
+        return job.report();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.validation")
+public class ValidationProperties {
+    // 0 — по числу процессоров
+    private int parallelism = 0;
+    // Округляется вверх до степени двойки
+    private int partitions = 1024;
+    private int chunkSize = 65_536;
+    private int maxReportedConflicts = 1000;
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("faststart")
+class FastStartProfileTests {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void scheduledBeansAreCreatedEagerly() {
+        assertTrue(beanFactory.containsSingleton("counterReconciler"));
+        assertTrue(beanFactory.containsSingleton("cascadeCleaner"));
+        assertTrue(beanFactory.containsSingleton("popularFilmsCache"));
+        assertTrue(beanFactory.containsSingleton("changeFeedDispatcher"));
+    }
+
+    @Test
+    void otherBeansStayLazy() {
+        assertFalse(beanFactory.containsSingleton("bulkService"));
+    }
+}
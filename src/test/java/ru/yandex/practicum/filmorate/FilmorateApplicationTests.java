@@ -6,16 +6,31 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
 import ru.yandex.practicum.filmorate.controller.FilmController;
 import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.counters.CounterReconciler;
+import ru.yandex.practicum.filmorate.counters.EngagementCounters;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSummary;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+import ru.yandex.practicum.filmorate.model.ValidationStatus;
+import ru.yandex.practicum.filmorate.service.BulkService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +50,18 @@ class FilmorateApplicationTests {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private BulkService bulkService;
+
+    @Autowired
+    private CounterReconciler counterReconciler;
+
+    @Autowired
+    private EngagementCounters counters;
+
     protected User user;
     protected User invalidUser;
     protected Film film;
@@ -99,6 +126,14 @@ class FilmorateApplicationTests {
                 () -> userController.addUser(invalidUser));
     }
 
+    @Test
+    void rejectNonPositiveIdsInBody() {
+        assertThrows(ValidationException.class,
+                () -> userController.addUser(user.toBuilder().friends(Set.of(-1L)).build()));
+        assertThrows(ValidationException.class,
+                () -> filmController.addFilm(film.toBuilder().likes(Set.of(0L)).build()));
+    }
+
     @Test
     void createFilm() {
         Film created = filmController.addFilm(film);
@@ -122,7 +157,7 @@ class FilmorateApplicationTests {
                 .birthday(user.getBirthday())
                 .build();
 
-        User updated = userController.updateUser(updateData);
+        User updated = userController.updateUser(updateData, null).getBody();
 
         assertEquals(newUser.getId(), updated.getId());
         assertEquals("new@email.com", updated.getEmail());
@@ -138,7 +173,7 @@ class FilmorateApplicationTests {
                 .build();
 
         assertThrows(NotFoundException.class,
-                () -> userController.updateUser(nonExistentUpdate));
+                () -> userController.updateUser(nonExistentUpdate, null));
     }
 
     @Test
@@ -153,7 +188,7 @@ class FilmorateApplicationTests {
                 .releaseDate(LocalDate.of(2000, 10, 30))
                 .build();
 
-        Film updated = filmController.updateFilm(updateData);
+        Film updated = filmController.updateFilm(updateData, null).getBody();
 
         assertEquals(created.getId(), updated.getId());
         assertEquals("Новое имя", updated.getName());
@@ -179,13 +214,13 @@ class FilmorateApplicationTests {
                         .build()
         );
 
-        userController.addFriend(user1.getId(), user2.getId());
+        userController.addFriend(user1.getId(), user2.getId()).join();
 
-        List<User> user1Friends = userController.getFriends(user1.getId());
+        List<User> user1Friends = userController.getFriends(user1.getId()).join();
         assertEquals(1, user1Friends.size());
         assertEquals(user2.getId(), user1Friends.get(0).getId());
 
-        List<User> user2Friends = userController.getFriends(user2.getId());
+        List<User> user2Friends = userController.getFriends(user2.getId()).join();
         assertEquals(1, user2Friends.size());
         assertEquals(user1.getId(), user2Friends.get(0).getId());
 
@@ -198,10 +233,10 @@ class FilmorateApplicationTests {
                         .build()
         );
 
-        userController.addFriend(user1.getId(), commonFriend.getId());
-        userController.addFriend(user2.getId(), commonFriend.getId());
+        userController.addFriend(user1.getId(), commonFriend.getId()).join();
+        userController.addFriend(user2.getId(), commonFriend.getId()).join();
 
-        List<User> commonFriends = userController.getCommonFriends(user1.getId(), user2.getId());
+        List<User> commonFriends = userController.getCommonFriends(user1.getId(), user2.getId()).join();
         assertEquals(1, commonFriends.size());
         assertEquals(commonFriend.getId(), commonFriends.get(0).getId());
     }
@@ -211,12 +246,251 @@ class FilmorateApplicationTests {
         Film film1 = filmController.addFilm(film);
         User user1 = userController.addUser(user);
 
-        filmController.addLike(film1.getId(), user1.getId());
+        filmController.addLike(film1.getId(), user1.getId()).join();
 
-        List<Film> popular = filmController.getPopularFilms(1);
+        List<Film> popular = filmController.getPopularFilms(1).join();
         assertEquals(1, popular.size());
         assertEquals(film1.getId(), popular.get(0).getId());
         assertEquals(1, popular.get(0).getLikes().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testFilmSummaryAndLikesPage() {
+        Film film1 = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+
+        filmController.addLike(film1.getId(), user1.getId()).join();
+
+        FilmSummary summary = filmController.getFilmSummaryById(film1.getId());
+        assertEquals(1, summary.getLikesCount());
+        assertEquals(List.of(user1.getId()), filmController.getLikes(film1.getId(), 0, 10));
+        assertTrue(filmController.getLikes(film1.getId(), 1, 10).isEmpty());
+    }
+
+    @Test
+    void testChangeFeedRecordsMutations() {
+        long from = changeFeed.getLastSequence() + 1;
+        Film film1 = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        filmController.addLike(film1.getId(), user1.getId()).join();
+
+        List<ChangeEvent> events = changeFeed.read(from, 100);
+        assertEquals(ChangeType.FILM_CREATED, events.get(0).getType());
+        assertEquals(ChangeType.USER_CREATED, events.get(1).getType());
+        assertEquals(ChangeType.LIKE_ADDED, events.get(events.size() - 1).getType());
+        assertEquals(user1.getId(), events.get(events.size() - 1).getRelatedId());
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1).getSequence() + 1, events.get(i).getSequence());
+        }
+    }
+
+    @Test
+    void testCascadePublishesRemovedLinks() {
+        Film film1 = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        User user2 = userController.addUser(user.toBuilder().email("petr@email.com").login("petrLogin").build());
+        filmController.addLike(film1.getId(), user1.getId()).join();
+        userController.addFriend(user1.getId(), user2.getId()).join();
+
+        long from = changeFeed.getLastSequence() + 1;
+        filmController.deleteFilm(film1.getId());
+        userController.deleteUser(user1.getId());
+
+        List<ChangeEvent> events = changeFeed.read(from, 100);
+        assertTrue(events.stream().anyMatch(event -> event.getType() == ChangeType.LIKE_REMOVED
+                && event.getEntityId().equals(film1.getId()) && event.getRelatedId().equals(user1.getId())));
+        assertEquals(2, events.stream().filter(event -> event.getType() == ChangeType.FRIEND_REMOVED).count());
+    }
+
+    @Test
+    void testBulkUserImportAndExport() throws Exception {
+        String ndjson = """
+                {"email":"a@email.com","login":"a","birthday":"1990-01-01"}
+                {"email":"b@email.com","login":"b","birthday":"1991-01-01"}
+                {"email":"A@email.com","login":"c","birthday":"1992-01-01"}
+                {"email":"not-an-email","login":"d"}
+                """;
+
+        BulkImportResult result = bulkService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, bulkService.exportUsers(out));
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void testBulkUserImportRespectsExistingUsers() throws Exception {
+        userController.addUser(user);
+        String ndjson = """
+                {"email":"IVAN@email.com","login":"other","birthday":"1990-01-01"}
+                {"email":"other@email.com","login":"ivanlogin","birthday":"1990-01-01"}
+                """;
+
+        BulkImportResult result = bulkService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(0, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(1, userController.getAllUsers().size());
+    }
+
+    @Test
+    void testFriendGraphAnalytics() {
+        User first = userController.addUser(User.builder()
+                .email("first@email.com").login("first").birthday(LocalDate.of(1990, 1, 1)).build());
+        User second = userController.addUser(User.builder()
+                .email("second@email.com").login("second").birthday(LocalDate.of(1990, 1, 1)).build());
+        User third = userController.addUser(User.builder()
+                .email("third@email.com").login("third").birthday(LocalDate.of(1990, 1, 1)).build());
+
+        userController.addFriend(first.getId(), second.getId()).join();
+        userController.addFriend(second.getId(), third.getId()).join();
+
+        assertEquals(2, userController.getSeparation(first.getId(), third.getId()).getDegrees());
+        assertEquals(2, userController.getNetworkSize(first.getId(), 2).getSize());
+
+        userController.removeFriend(second.getId(), third.getId()).join();
+        assertFalse(userController.getSeparation(first.getId(), third.getId()).isReachable());
+    }
+
+    @Test
+    void friendsInCreateBodyAreIgnored() {
+        User first = userController.addUser(User.builder()
+                .email("first@email.com").login("first").birthday(LocalDate.of(1990, 1, 1)).build());
+        User second = userController.addUser(User.builder()
+                .email("second@email.com").login("second").birthday(LocalDate.of(1990, 1, 1))
+                .friends(Set.of(first.getId())).build());
+
+        assertTrue(second.getFriends().isEmpty());
+        assertTrue(userController.getFriends(first.getId()).join().isEmpty());
+        assertFalse(userController.getSeparation(first.getId(), second.getId()).isReachable());
+        assertEquals(0, userController.getUserSummaryById(second.getId()).getFriendsCount());
+    }
+
+    @Test
+    void rejectStaleFilmUpdate() {
+        Film created = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        filmController.addLike(created.getId(), user1.getId()).join();
+
+        Film updateData = Film.builder()
+                .id(created.getId())
+                .name("Новое имя")
+                .duration(100)
+                .releaseDate(LocalDate.of(2000, 10, 30))
+                .build();
+
+        Film updated = filmController.updateFilm(updateData, "\"1\"").getBody();
+        assertEquals(2L, updated.getVersion());
+        assertEquals(1, updated.getLikes().size());
+
+        assertThrows(VersionConflictException.class,
+                () -> filmController.updateFilm(updateData, "\"1\""));
+    }
+
+    @Test
+    void deleteUserRemovesFriendshipsAndLikes() {
+        Film created = filmController.addFilm(film);
+        User deleted = userController.addUser(user);
+        User friend = userController.addUser(User.builder()
+                .email("friend@email.com").login("friend").birthday(LocalDate.of(1990, 1, 1)).build());
+        userController.addFriend(deleted.getId(), friend.getId()).join();
+        filmController.addLike(created.getId(), deleted.getId()).join();
+
+        userController.deleteUser(deleted.getId());
+
+        assertTrue(userController.getFriends(friend.getId()).join().isEmpty());
+        assertTrue(filmController.getLikes(created.getId(), 0, 10).isEmpty());
+        assertEquals(0, filmController.getFilmSummaryById(created.getId()).getLikesCount());
+        assertEquals(0, userController.getUserSummaryById(friend.getId()).getFriendsCount());
+        assertThrows(NotFoundException.class, () -> userController.getUserById(deleted.getId()));
+    }
+
+    @Test
+    void likedFilmsPageFollowsLikesAndDeletion() {
+        Film first = filmController.addFilm(film);
+        Film second = filmController.addFilm(film.toBuilder().id(null).name("Second").build());
+        User user1 = userController.addUser(user);
+        filmController.addLike(first.getId(), user1.getId()).join();
+        filmController.addLike(second.getId(), user1.getId()).join();
+
+        assertEquals(List.of(first.getId(), second.getId()), userController.getLikedFilms(user1.getId(), 0, 10));
+        assertEquals(List.of(second.getId()), userController.getLikedFilms(user1.getId(), 1, 10));
+
+        filmController.removeLike(second.getId(), user1.getId()).join();
+        filmController.deleteFilm(first.getId());
+        assertTrue(userController.getLikedFilms(user1.getId(), 0, 10).isEmpty());
+    }
+
+    @Test
+    void reconcileDriftedLikeCounter() {
+        Film created = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        filmController.addLike(created.getId(), user1.getId()).join();
+        assertEquals(1, filmController.getFilmSummaryById(created.getId()).getLikesCount());
+
+        filmService.getFilmById(created.getId()).getLikes().add(999L);
+        assertEquals(1, filmController.getFilmSummaryById(created.getId()).getLikesCount());
+
+        // Первая сверка только запоминает расхождение: оно могло быть гонкой с обновлением счётчика
+        counterReconciler.reconcile();
+        assertEquals(1, filmController.getFilmSummaryById(created.getId()).getLikesCount());
+        assertTrue(counterReconciler.reconcile() > 0);
+        assertEquals(2, filmController.getFilmSummaryById(created.getId()).getLikesCount());
+        assertEquals(created.getId(), filmController.getPopularFilms(1).join().get(0).getId());
+    }
+
+    @Test
+    void reconcileIgnoresMissingZeroCounters() {
+        // Счётчики, оставшиеся от других тестов, сверка удаляет сразу, а расхождения — со второго прохода
+        counterReconciler.reconcile();
+        counterReconciler.reconcile();
+        Film created = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        counters.getFilmLikes().remove(created.getId());
+        counters.getUserFriends().remove(user1.getId());
+
+        assertEquals(0, counterReconciler.reconcile());
+        assertEquals(0, counterReconciler.reconcile());
+        assertFalse(counters.getFilmLikes().ids().contains(created.getId()));
+        assertFalse(counters.getUserFriends().ids().contains(user1.getId()));
+    }
+
+    @Test
+    void popularFilmsServedFromCache() {
+        Film created = filmController.addFilm(film);
+        User user1 = userController.addUser(user);
+        filmController.addLike(created.getId(), user1.getId()).join();
+
+        long hits = filmController.getPopularCacheStats().getHits();
+        assertEquals(created.getId(), filmController.getPopularFilms(10).join().get(0).getId());
+        assertEquals(created.getId(), filmController.getPopularFilms(10).join().get(0).getId());
+        assertTrue(filmController.getPopularCacheStats().getHits() > hits);
+        assertEquals(1, filmController.getPopularFilmSummaries(10).join().get(0).getLikesCount());
+
+        filmController.deleteFilm(created.getId());
+        assertTrue(filmController.getPopularFilms(10).join().isEmpty());
+    }
+
+    @Test
+    void validationReportsDuplicateEmails() throws InterruptedException {
+        User first = userController.addUser(user);
+        User second = userController.addUser(user.toBuilder().id(null).email("other@email.com").login("other").build());
+        userService.getUserById(second.getId()).setEmail("IVAN@email.com");
+
+        ValidationReport report = userController.startValidation();
+        for (int i = 0; i < 500 && report.getStatus() == ValidationStatus.RUNNING; i++) {
+            Thread.sleep(10);
+            report = userController.getValidation(report.getId());
+        }
+
+        assertEquals(ValidationStatus.COMPLETED, report.getStatus());
+        assertEquals(2, report.getValidated());
+        assertEquals(1, report.getEmailConflicts());
+        assertEquals(0, report.getLoginConflicts());
+        assertEquals(List.of(first.getId(), second.getId()), report.getConflicts().get(0).getUserIds());
+    }
+
+}
@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.async;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Синхронные и асинхронные методы сервисов поверх медленного хранилища: каждое обращение
+ * к хранилищу задерживается на заданное число миллисекунд. Печатает полную задержку вызова
+ * и время, на которое занят поток запроса (для асинхронного варианта — до возврата future).
+ * Запуск: java -cp target/classes:target/test-classes:<зависимости>
+ * ru.yandex.practicum.filmorate.async.SlowStorageBenchmark [задержка, мс] [общих друзей] [повторов]
+ */
+public class SlowStorageBenchmark {
+    private static long delayNanos;
+
+    public static void main(String[] args) {
+        delayNanos = (args.length > 0 ? Long.parseLong(args[0]) : 2) * 1_000_000;
+        int commonFriends = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                FilmorateApplication.class, SlowStorageConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run()) {
+            UserService users = context.getBean(UserService.class);
+            FilmService films = context.getBean(FilmService.class);
+
+            long first = users.addUser(user("first")).getId();
+            long second = users.addUser(user("second")).getId();
+            for (int i = 0; i < commonFriends; i++) {
+                long friend = users.addUser(user("friend" + i)).getId();
+                users.addFriend(first, friend);
+                users.addFriend(second, friend);
+            }
+            long film = films.addFilm(Film.builder()
+                    .name("Film")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .build()).getId();
+
+            compare("getCommonFriends", repeats,
+                    () -> users.getCommonFriends(first, second),
+                    () -> users.getCommonFriendsAsync(first, second));
+            compare("getFriends", repeats,
+                    () -> users.getFriends(first),
+                    () -> users.getFriendsAsync(first));
+            compare("addLike+removeLike", repeats,
+                    () -> {
+                        films.addLike(film, first);
+                        films.removeLike(film, first);
+                        return null;
+                    },
+                    () -> films.addLikeAsync(film, first).thenCompose(ignored -> films.removeLikeAsync(film, first)));
+        }
+    }
+
+    private static void compare(String name, int repeats, Supplier<?> sync, Supplier<CompletableFuture<?>> async) {
+        long syncTotal = 0;
+        long asyncTotal = 0;
+        long asyncHeld = 0;
+        for (int i = 0; i < repeats; i++) {
+            long started = System.nanoTime();
+            sync.get();
+            syncTotal += System.nanoTime() - started;
+
+            started = System.nanoTime();
+            CompletableFuture<?> future = async.get();
+            asyncHeld += System.nanoTime() - started;
+            future.join();
+            asyncTotal += System.nanoTime() - started;
+        }
+        System.out.printf("%-20s синхронно %7.2f мс (поток занят всё время), асинхронно %7.2f мс, "
+                        + "поток запроса занят %5.3f мс%n",
+                name, syncTotal / 1e6 / repeats, asyncTotal / 1e6 / repeats, asyncHeld / 1e6 / repeats);
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private static void pause() {
+        long deadline = System.nanoTime() + delayNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(deadline - System.nanoTime());
+        }
+    }
+
+    // Без @Configuration, чтобы сканирование компонентов в тестах не подхватило медленные хранилища
+    static class SlowStorageConfig {
+
+        @Bean
+        @Primary
+        UserStorage slowUserStorage(InMemoryUserStorage delegate) {
+            return new SlowUserStorage(delegate);
+        }
+
+        @Bean
+        @Primary
+        FilmStorage slowFilmStorage(InMemoryFilmStorage delegate) {
+            return new SlowFilmStorage(delegate);
+        }
+    }
+
+    private record SlowUserStorage(UserStorage delegate) implements UserStorage {
+        @Override
+        public Collection<User> getAllUsers() {
+            return delegate.getAllUsers();
+        }
+
+        @Override
+        public User addUser(User user) {
+            return delegate.addUser(user);
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            pause();
+            return delegate.getUserById(id);
+        }
+
+        @Override
+        public boolean existsUser(Long id) {
+            pause();
+            return delegate.existsUser(id);
+        }
+
+        @Override
+        public User updateUser(User user) {
+            pause();
+            return delegate.updateUser(user);
+        }
+
+        @Override
+        public boolean addFriend(Long userId, Long friendId) {
+            pause();
+            return delegate.addFriend(userId, friendId);
+        }
+
+        @Override
+        public boolean removeFriend(Long userId, Long friendId) {
+            pause();
+            return delegate.removeFriend(userId, friendId);
+        }
+
+        @Override
+        public void deleteUser(Long id) {
+            delegate.deleteUser(id);
+        }
+
+        @Override
+        public Optional<Long> findIdByEmail(String email) {
+            return delegate.findIdByEmail(email);
+        }
+
+        @Override
+        public Optional<Long> findIdByLogin(String login) {
+            return delegate.findIdByLogin(login);
+        }
+
+        @Override
+        public void forEachFriendCount(ObjIntConsumer<Long> action) {
+            delegate.forEachFriendCount(action);
+        }
+    }
+
+    private record SlowFilmStorage(FilmStorage delegate) implements FilmStorage {
+        @Override
+        public Optional<Film> getFilmById(Long id) {
+            pause();
+            return delegate.getFilmById(id);
+        }
+
+        @Override
+        public boolean existsFilm(Long id) {
+            pause();
+            return delegate.existsFilm(id);
+        }
+
+        @Override
+        public Film addFilm(Film film) {
+            return delegate.addFilm(film);
+        }
+
+        @Override
+        public Film updateFilm(Film film) {
+            pause();
+            return delegate.updateFilm(film);
+        }
+
+        @Override
+        public boolean addLike(Long filmId, Long userId) {
+            pause();
+            return delegate.addLike(filmId, userId);
+        }
+
+        @Override
+        public boolean removeLike(Long filmId, Long userId) {
+            pause();
+            return delegate.removeLike(filmId, userId);
+        }
+
+        @Override
+        public Optional<Film> deleteFilm(Long id) {
+            return delegate.deleteFilm(id);
+        }
+
+        @Override
+        public Collection<Film> getAllFilms() {
+            return delegate.getAllFilms();
+        }
+
+        @Override
+        public void forEachLikeCount(ObjIntConsumer<Long> action) {
+            delegate.forEachLikeCount(action);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.changefeed;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    void readersStopAtClaimedButUnwrittenEvent() {
+        ChangeFeed feed = new ChangeFeed(new ChangeFeedProperties());
+        feed.publish(ChangeType.FILM_CREATED, 1L);
+        long claimed = feed.claim();
+        feed.publish(ChangeType.FILM_CREATED, 2L);
+
+        assertEquals(List.of(1L), entityIds(feed.read(1, 10)));
+
+        feed.publish(claimed, ChangeType.FILM_UPDATED, 1L);
+        List<ChangeEvent> events = feed.read(1, 10);
+        assertEquals(List.of(1L, 1L, 2L), entityIds(events));
+        assertEquals(ChangeType.FILM_UPDATED, events.get(1).getType());
+    }
+
+    @Test
+    void lateWriteDoesNotOverwriteNewerEventInSlot() {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setCapacity(2);
+        ChangeFeed feed = new ChangeFeed(properties);
+        long claimed = feed.claim();
+        feed.publish(ChangeType.FILM_CREATED, 2L);
+        feed.publish(ChangeType.FILM_CREATED, 3L);
+
+        feed.publish(claimed, ChangeType.FILM_CREATED, 1L);
+
+        assertEquals(List.of(2L, 3L), entityIds(feed.read(feed.getOldestSequence(), 10)));
+    }
+
+    private static List<Long> entityIds(List<ChangeEvent> events) {
+        return events.stream().map(ChangeEvent::getEntityId).toList();
+    }
+}
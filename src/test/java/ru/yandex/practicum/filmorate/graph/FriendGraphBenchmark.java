@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import java.util.SplittableRandom;
+
+/**
+ * Бенчмарк аналитики графа дружбы на синтетическом степенном графе (preferential attachment).
+ * Запуск: java -cp target/classes:target/test-classes ru.yandex.practicum.filmorate.graph.FriendGraphBenchmark
+ * [вершин] [рёбер на вершину] [запросов]
+ */
+public class FriendGraphBenchmark {
+
+    public static void main(String[] args) {
+        int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int edgesPerVertex = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        long start = System.nanoTime();
+        CsrGraph csr = powerLawGraph(vertices, edgesPerVertex, new SplittableRandom(42));
+        System.out.printf("Граф: %d вершин, %d рёбер, построен за %d мс%n",
+                csr.vertexCount(), csr.edgeCount(), millisSince(start));
+
+        GraphProperties properties = new GraphProperties();
+        FriendGraph friendGraph = new FriendGraph(properties);
+        friendGraph.replaceBase(csr);
+        GraphTraversal traversal = new GraphTraversal(friendGraph, properties);
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (int warmup = 0; warmup < 20; warmup++) {
+            traversal.degreesOfSeparation(1 + random.nextInt(vertices - 1), 1 + random.nextInt(vertices - 1));
+        }
+
+        start = System.nanoTime();
+        long totalDegrees = 0;
+        for (int i = 0; i < queries; i++) {
+            totalDegrees += traversal.degreesOfSeparation(1 + random.nextInt(vertices - 1),
+                    1 + random.nextInt(vertices - 1));
+        }
+        long elapsed = millisSince(start);
+        System.out.printf("path: %d запросов за %d мс (%.2f мс/запрос), средняя степень разделения %.2f%n",
+                queries, elapsed, (double) elapsed / queries, (double) totalDegrees / queries);
+
+        for (int depth = 1; depth <= 3; depth++) {
+            start = System.nanoTime();
+            long totalSize = 0;
+            int sizeQueries = Math.max(1, queries / (depth * depth * 4));
+            for (int i = 0; i < sizeQueries; i++) {
+                totalSize += traversal.networkSize(1 + random.nextInt(vertices - 1), depth);
+            }
+            elapsed = millisSince(start);
+            System.out.printf("network/size depth=%d: %d запросов за %d мс (%.2f мс/запрос), средний размер %d%n",
+                    depth, sizeQueries, elapsed, (double) elapsed / sizeQueries, totalSize / sizeQueries);
+        }
+
+        start = System.nanoTime();
+        int updates = properties.getCompactionThreshold() * 5;
+        for (int i = 0; i < updates; i++) {
+            friendGraph.addEdge(1 + random.nextInt(vertices - 1), 1 + random.nextInt(vertices - 1));
+        }
+        elapsed = millisSince(start);
+        System.out.printf("Инкрементальные изменения: %d рёбер за %d мс (включая %d уплотнений)%n",
+                updates, elapsed, updates / properties.getCompactionThreshold());
+    }
+
+    private static CsrGraph powerLawGraph(int vertices, int edgesPerVertex, SplittableRandom random) {
+        int capacity = vertices * edgesPerVertex;
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        int edges = 0;
+        for (int v = 2; v < vertices; v++) {
+            for (int k = 0; k < edgesPerVertex && k < v - 1; k++) {
+                // Конец случайного существующего ребра выбирается пропорционально степени вершины
+                int target = edges == 0 || random.nextInt(4) == 0
+                        ? 1 + random.nextInt(v - 1)
+                        : (random.nextBoolean() ? from : to)[random.nextInt(edges)];
+                if (target != v) {
+                    from[edges] = v;
+                    to[edges] = target;
+                    edges++;
+                }
+            }
+        }
+        return CsrGraph.fromEdges(vertices, from, to, edges);
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.graph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FriendGraphTest {
+    private static final int VERTICES = 200;
+
+    private final FriendGraph graph = new FriendGraph(properties());
+
+    @AfterEach
+    void tearDown() {
+        graph.shutdown();
+    }
+
+    @Test
+    void viewMatchesEdgesWhileCompactingInBackground() {
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        for (int v = 0; v < VERTICES; v++) {
+            expected.add(new TreeSet<>());
+        }
+        SplittableRandom random = new SplittableRandom(1);
+        for (int step = 0; step < 20_000; step++) {
+            int u = 1 + random.nextInt(VERTICES - 1);
+            int v = 1 + random.nextInt(VERTICES - 1);
+            if (u == v) {
+                continue;
+            }
+            if (random.nextInt(3) == 0) {
+                graph.removeEdge(u, v);
+                expected.get(u).remove(v);
+                expected.get(v).remove(u);
+            } else {
+                graph.addEdge(u, v);
+                expected.get(u).add(v);
+                expected.get(v).add(u);
+            }
+            if (step % 1000 == 0) {
+                assertNeighbors(expected);
+            }
+        }
+        assertNeighbors(expected);
+    }
+
+    @Test
+    void repeatedChangesAreIgnored() {
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 1);
+        graph.removeEdge(1, 3);
+
+        assertEquals(List.of(2), neighbors(graph.view(), 1));
+        assertEquals(List.of(1), neighbors(graph.view(), 2));
+        assertEquals(3, graph.view().vertexCount());
+    }
+
+    @Test
+    void outOfRangeIdIsRejectedAsValidationError() {
+        assertThrows(DomainValidationException.class, () -> graph.addEdge(1, Integer.MAX_VALUE));
+        assertThrows(DomainValidationException.class, () -> FriendGraph.vertex(-1));
+    }
+
+    private void assertNeighbors(List<TreeSet<Integer>> expected) {
+        GraphView view = graph.view();
+        for (int v = 0; v < VERTICES; v++) {
+            assertEquals(new ArrayList<>(expected.get(v)), neighbors(view, v));
+        }
+    }
+
+    private static List<Integer> neighbors(GraphView view, int v) {
+        TreeSet<Integer> neighbors = new TreeSet<>();
+        view.forEachNeighbor(v, neighbors::add);
+        return new ArrayList<>(neighbors);
+    }
+
+    private static GraphProperties properties() {
+        GraphProperties properties = new GraphProperties();
+        properties.setCompactionThreshold(16);
+        return properties;
+    }
+}
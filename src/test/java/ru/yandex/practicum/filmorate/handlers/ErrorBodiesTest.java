@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.handlers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import ru.yandex.practicum.filmorate.model.ApiError;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ErrorBodiesTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    // Все статусы и сообщения, которые GlobalExceptionHandler отдаёт через ErrorBodies
+    private static final Map<HttpStatus, String> ERROR_KINDS = Map.of(
+            HttpStatus.NOT_FOUND, "Not found",
+            HttpStatus.BAD_REQUEST, "Validation failed",
+            HttpStatus.TOO_MANY_REQUESTS, "Too many requests",
+            HttpStatus.SERVICE_UNAVAILABLE, "Service overloaded");
+
+    private static final String[] DETAILS = {"Фильм \"1\" не найден", "", "строка\nс <тегом> и \\ \u0007",
+            "Фильм 🎬 не найден", null};
+    private static final int[] NANOS = {0, 1, 100_000_000, 120_000_000, 123_456_000, 123_456_789};
+
+    @Test
+    void bodyMatchesObjectMapperForEveryErrorKind() throws Exception {
+        assertMatchesMapper(MAPPER);
+    }
+
+    @Test
+    void bodyFollowsMapperSettings() throws Exception {
+        assertMatchesMapper(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL));
+        assertMatchesMapper(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT));
+    }
+
+    private static void assertMatchesMapper(ObjectMapper mapper) throws Exception {
+        ErrorBodies errorBodies = new ErrorBodies(mapper);
+        LocalDateTime base = LocalDateTime.of(2024, 2, 29, 23, 59, 0);
+        for (Map.Entry<HttpStatus, String> kind : ERROR_KINDS.entrySet()) {
+            for (String details : DETAILS) {
+                for (int nano : NANOS) {
+                    LocalDateTime now = base.withNano(nano);
+                    ApiError expected = ApiError.builder()
+                            .status(kind.getKey())
+                            .message(kind.getValue())
+                            .details(details)
+                            .timestamp(now)
+                            .build();
+
+                    assertArrayEquals(mapper.writeValueAsBytes(expected),
+                            errorBodies.encode(kind.getKey(), kind.getValue(), details, now),
+                            kind.getKey() + " " + details + " " + now);
+                }
+            }
+        }
+    }
+}
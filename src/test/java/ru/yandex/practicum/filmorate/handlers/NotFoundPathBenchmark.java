@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.HttpStatus;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.ApiError;
+
+import java.time.LocalDateTime;
+
+/**
+ * Стоимость ответа 404 до и после облегчения: исключение со стеком + ApiError + ObjectMapper
+ * против исключения без стека + заранее закодированного тела. Глубина стека имитирует
+ * цепочку фильтров и прокси Spring MVC.
+ * Запуск: java -cp target/classes:target/test-classes:<зависимости>
+ * ru.yandex.practicum.filmorate.handlers.NotFoundPathBenchmark [глубина стека] [секунд]
+ */
+public class NotFoundPathBenchmark {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final ErrorBodies ERROR_BODIES = new ErrorBodies(MAPPER);
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 3;
+
+        measure("до    (стек + ApiError + ObjectMapper)", depth, seconds, NotFoundPathBenchmark::before);
+        measure("после (без стека + готовое тело)     ", depth, seconds, NotFoundPathBenchmark::after);
+        System.out.println(sink == 42 ? "" : "ok");
+    }
+
+    private static byte[] before(long id) throws Exception {
+        try {
+            throw new StackfulNotFoundException("Фильм с ID " + id + " не найден");
+        } catch (StackfulNotFoundException ex) {
+            ApiError error = ApiError.builder()
+                    .status(HttpStatus.NOT_FOUND)
+                    .message("Not found")
+                    .details(ex.getMessage())
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            return MAPPER.writeValueAsBytes(error);
+        }
+    }
+
+    private static byte[] after(long id) {
+        try {
+            throw new FilmNotFoundException("Фильм с ID " + id + " не найден");
+        } catch (FilmNotFoundException ex) {
+            return ERROR_BODIES.encode(HttpStatus.NOT_FOUND, "Not found", ex.getMessage());
+        }
+    }
+
+    private static void measure(String name, int depth, long seconds, Request request) throws Exception {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            sink += atDepth(depth, request, sink);
+        }
+        long start = System.nanoTime();
+        deadline = start + seconds * 1_000_000_000L;
+        long count = 0;
+        while (System.nanoTime() < deadline) {
+            sink += atDepth(depth, request, count++);
+        }
+        double perSecond = count * 1e9 / (System.nanoTime() - start);
+        System.out.printf("%s: %,12.0f ответов 404/с%n", name, perSecond);
+    }
+
+    private static int atDepth(int depth, Request request, long id) throws Exception {
+        if (depth == 0) {
+            return request.handle(id).length;
+        }
+        return atDepth(depth - 1, request, id);
+    }
+
+    private interface Request {
+        byte[] handle(long id) throws Exception;
+    }
+
+    private static class StackfulNotFoundException extends RuntimeException {
+        StackfulNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
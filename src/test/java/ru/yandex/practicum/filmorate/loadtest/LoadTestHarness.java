@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Генератор нагрузки: поднимает приложение на случайном порту (или берёт -Dload.base-url),
+ * наполняет его пользователями, фильмами, лайками и дружбой со степенным распределением
+ * и прогоняет взвешенную смесь запросов ступенями по числу потоков.
+ * По каждой ступени и операции печатает пропускную способность и перцентили задержки.
+ * Запуск: mvn -Pload-test test-compile exec:java -Dload.users=10000 -Dload.stages=1,4,16,64
+ * Параметры (-Dload.*): base-url, users, films, likes, friendships, zipf, mix, stages,
+ * stage-seconds, warmup-seconds, rate (запросов/с на ступень, 0 — замкнутый цикл), protection.
+ */
+public class LoadTestHarness {
+
+    enum Operation { POPULAR, ADD_LIKE, GET_FRIENDS, COMMON_FRIENDS, ADD_USER }
+
+    private static final Map<String, Operation> MIX_NAMES = Map.of(
+            "popular", Operation.POPULAR,
+            "like", Operation.ADD_LIKE,
+            "friends", Operation.GET_FRIENDS,
+            "common", Operation.COMMON_FRIENDS,
+            "addUser", Operation.ADD_USER);
+
+    private final FilmorateClient client;
+    private final long[] userIds;
+    private final long[] filmIds;
+    private final ZipfSampler userPopularity;
+    private final ZipfSampler filmPopularity;
+    private final Operation[] mix;
+    private final AtomicLong nextLogin = new AtomicLong();
+
+    private LoadTestHarness(FilmorateClient client, int users, int films, double zipf, Operation[] mix) {
+        this.client = client;
+        this.userIds = new long[users];
+        this.filmIds = new long[films];
+        this.userPopularity = new ZipfSampler(users, zipf);
+        this.filmPopularity = new ZipfSampler(films, zipf);
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.base-url", "");
+        int users = Integer.getInteger("load.users", 10_000);
+        int films = Integer.getInteger("load.films", 2_000);
+        int likes = Integer.getInteger("load.likes", 50_000);
+        int friendships = Integer.getInteger("load.friendships", 30_000);
+        double zipf = Double.parseDouble(System.getProperty("load.zipf", "1.1"));
+        Operation[] mix = parseMix(System.getProperty("load.mix", "popular:40,like:25,friends:20,common:10,addUser:5"));
+        int[] stages = Arrays.stream(System.getProperty("load.stages", "1,4,16,64").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim()))
+                .toArray();
+        long stageSeconds = Long.getLong("load.stage-seconds", 30);
+        long warmupSeconds = Long.getLong("load.warmup-seconds", 5);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+
+        ConfigurableApplicationContext context = null;
+        if (baseUrl.isEmpty()) {
+            context = startApplication(Boolean.getBoolean("load.protection"));
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            LoadTestHarness harness = new LoadTestHarness(new FilmorateClient(baseUrl), users, films, zipf, mix);
+            harness.seed(likes, friendships);
+            harness.runStage(stages[0], warmupSeconds, rate);
+
+            List<StageReport> reports = new ArrayList<>();
+            for (int threads : stages) {
+                StageReport report = harness.runStage(threads, stageSeconds, rate);
+                report.print();
+                reports.add(report);
+            }
+            printSaturation(reports);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(boolean protection) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "filmorate.rate-limit.enabled=" + protection,
+                        "filmorate.load-shedding.enabled=" + protection,
+                        "logging.level.org.zalando.logbook=OFF")
+                .run();
+    }
+
+    private void seed(int likes, int friendships) throws InterruptedException {
+        long started = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        parallel(threads, userIds.length, i -> userIds[i] = client.create("/users", newUser()));
+        parallel(threads, filmIds.length, i -> filmIds[i] = client.create("/films", Map.of(
+                "name", "Film " + i,
+                "description", "Seeded film " + i,
+                "releaseDate", "2000-01-01",
+                "duration", 90 + i % 60)));
+        // Лайки: пользователь равномерно, фильм по Ципфу; дружба: один конец равномерно, другой — "хаб"
+        parallel(threads, likes, i -> client.put("/films/" + popularFilm() + "/like/" + anyUser()));
+        parallel(threads, friendships, i -> client.put("/users/" + anyUser() + "/friends/" + popularUser()));
+        System.out.printf("наполнение: %,d пользователей, %,d фильмов, %,d лайков, %,d дружб за %,d мс%n",
+                userIds.length, filmIds.length, likes, friendships, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private StageReport runStage(int threads, long seconds, double rate) throws InterruptedException {
+        // В открытом режиме задержка считается от запланированного момента старта запроса,
+        // чтобы очередь перед перегруженным сервером не пряталась (coordinated omission)
+        long intervalNanos = rate > 0 ? (long) (threads * 1_000_000_000L / rate) : 0;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Worker> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Worker(deadline, intervalNanos));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        workers.forEach(executor::execute);
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+        return new StageReport(threads, seconds, workers);
+    }
+
+    private int execute(Operation operation) {
+        return switch (operation) {
+            case POPULAR -> client.get("/films/popular?count="
+                    + (ThreadLocalRandom.current().nextInt(4) == 0 ? 100 : 10));
+            case ADD_LIKE -> client.put("/films/" + popularFilm() + "/like/" + anyUser());
+            case GET_FRIENDS -> client.get("/users/" + popularUser() + "/friends");
+            case COMMON_FRIENDS -> client.get("/users/" + popularUser() + "/friends/common/" + anyUser());
+            case ADD_USER -> client.post("/users", newUser());
+        };
+    }
+
+    private Map<String, Object> newUser() {
+        long n = nextLogin.incrementAndGet();
+        return Map.of(
+                "email", "load" + n + "@example.com",
+                "login", "load" + n,
+                "name", "Load " + n,
+                "birthday", "1990-01-01");
+    }
+
+    private long anyUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    private long popularUser() {
+        return userIds[userPopularity.next()];
+    }
+
+    private long popularFilm() {
+        return filmIds[filmPopularity.next()];
+    }
+
+    private static Operation[] parseMix(String spec) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] entry = part.trim().split(":");
+            Operation operation = MIX_NAMES.get(entry[0]);
+            if (operation == null) {
+                throw new IllegalArgumentException("Неизвестная операция в load.mix: " + entry[0]);
+            }
+            for (int i = Integer.parseInt(entry[1]); i > 0; i--) {
+                weighted.add(operation);
+            }
+        }
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private static void parallel(int threads, int count, IntConsumer task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            executor.execute(() -> task.accept(index));
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    // Ступень считается насыщенной, если прирост пропускной способности меньше 5% или ошибок больше 1%
+    private static void printSaturation(List<StageReport> reports) {
+        System.out.println();
+        System.out.println("потоков   запросов/с   p99, мс   ошибок");
+        StageReport previous = null;
+        for (StageReport report : reports) {
+            boolean saturated = report.errorRate() > 0.01
+                    || previous != null && report.throughput() < previous.throughput() * 1.05;
+            System.out.printf("%7d %12.0f %9.2f %7.2f%%%s%n", report.threads, report.throughput(),
+                    report.total.getValueAtPercentile(99) / 1e6, report.errorRate() * 100,
+                    saturated ? "   <- насыщение" : "");
+            previous = report;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final long deadline;
+        private final long intervalNanos;
+        private final Histogram[] latencies = new Histogram[Operation.values().length];
+        private final long[] rejected = new long[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        private Worker(long deadline, long intervalNanos) {
+            this.deadline = deadline;
+            this.intervalNanos = intervalNanos;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram(3);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long planned = System.nanoTime() + (intervalNanos > 0 ? random.nextLong(intervalNanos) : 0);
+            while (planned < deadline) {
+                if (intervalNanos > 0) {
+                    LockSupport.parkNanos(planned - System.nanoTime());
+                }
+                Operation operation = mix[random.nextInt(mix.length)];
+                long started = intervalNanos > 0 ? planned : System.nanoTime();
+                int status;
+                try {
+                    status = execute(operation);
+                } catch (UncheckedIOException | IllegalStateException e) {
+                    status = 599;
+                }
+                long now = System.nanoTime();
+                latencies[operation.ordinal()].recordValue(now - started);
+                if (status >= 500) {
+                    errors[operation.ordinal()]++;
+                } else if (status >= 400) {
+                    rejected[operation.ordinal()]++;
+                }
+                planned = intervalNanos > 0 ? planned + intervalNanos : now;
+            }
+        }
+    }
+
+    private static final class StageReport {
+        private final int threads;
+        private final long seconds;
+        private final Histogram[] latencies = new Histogram[Operation.values().length];
+        private final long[] rejected = new long[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+        private final Histogram total = new Histogram(3);
+
+        private StageReport(int threads, long seconds, List<Worker> workers) {
+            this.threads = threads;
+            this.seconds = seconds;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram(3);
+                for (Worker worker : workers) {
+                    latencies[i].add(worker.latencies[i]);
+                    rejected[i] += worker.rejected[i];
+                    errors[i] += worker.errors[i];
+                }
+                total.add(latencies[i]);
+            }
+        }
+
+        private double throughput() {
+            return (double) total.getTotalCount() / seconds;
+        }
+
+        private double errorRate() {
+            return (double) Arrays.stream(errors).sum() / Math.max(1, total.getTotalCount());
+        }
+
+        private void print() {
+            System.out.printf("%nпотоков: %d, всего %.0f запросов/с%n", threads, throughput());
+            System.out.println("операция          запросов/с    p50    p90    p99  p99.9    max (мс)   4xx   5xx");
+            for (Operation operation : Operation.values()) {
+                Histogram h = latencies[operation.ordinal()];
+                if (h.getTotalCount() == 0) {
+                    continue;
+                }
+                System.out.printf("%-16s %11.0f %6.2f %6.2f %6.2f %6.2f %8.2f %7d %5d%n",
+                        operation, (double) h.getTotalCount() / seconds,
+                        h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+                        h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6,
+                        h.getMaxValue() / 1e6, rejected[operation.ordinal()], errors[operation.ordinal()]);
+            }
+        }
+    }
+}
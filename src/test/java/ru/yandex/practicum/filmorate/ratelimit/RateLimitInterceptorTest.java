@@ -0,0 +1,222 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.yandex.practicum.filmorate.exception.ServiceOverloadedException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.handlers.ErrorBodies;
+import ru.yandex.practicum.filmorate.handlers.GlobalExceptionHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+    private static final MockHttpServletResponse RESPONSE = new MockHttpServletResponse();
+    private static final GlobalExceptionHandler HANDLER = new GlobalExceptionHandler(new ErrorBodies(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)));
+
+    @Test
+    void burstIsExhaustedWith429() {
+        RateLimitInterceptor interceptor = interceptor(rateLimit(1, 3), shedding(false));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(interceptor.preHandle(post("10.0.0.1"), RESPONSE, null));
+        }
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(post("10.0.0.1"), RESPONSE, null));
+
+        var response = HANDLER.handleTooManyRequests(ex);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        // Другой клиент и запросы на чтение лимитом не затрагиваются
+        assertTrue(interceptor.preHandle(post("10.0.0.2"), RESPONSE, null));
+        assertTrue(interceptor.preHandle(request("GET", "10.0.0.1"), RESPONSE, null));
+    }
+
+    @Test
+    void bucketRefillsOverTime() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(rateLimit(50, 2));
+
+        assertTrue(limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+
+        // 50 запросов в секунду — одно разрешение каждые 20 мс
+        Thread.sleep(100);
+        assertTrue(limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client"));
+        assertFalse(limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void shedderRejectsWith503UnderConcurrency() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(shedding(true));
+        RateLimitInterceptor interceptor = interceptor(disabledRateLimit(), shedding(true), limiter);
+        int threads = 16;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        CountDownLatch attempted = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String client = "10.0.1." + i;
+                results.add(executor.submit(() -> {
+                    MockHttpServletRequest request = post(client);
+                    start.await();
+                    try {
+                        interceptor.preHandle(request, RESPONSE, null);
+                    } catch (ServiceOverloadedException e) {
+                        attempted.countDown();
+                        return false;
+                    }
+                    // Разрешение удерживается, пока все потоки не попытаются войти
+                    attempted.countDown();
+                    attempted.await();
+                    interceptor.afterCompletion(request, RESPONSE, null, null);
+                    return true;
+                }));
+            }
+            int admitted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    admitted++;
+                }
+            }
+            assertEquals(4, admitted);
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var response = HANDLER.handleServiceOverloaded(new ServiceOverloadedException("x"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void permitIsReleasedOnlyAfterAsyncDispatch() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(shedding(true));
+        RateLimitInterceptor interceptor = interceptor(disabledRateLimit(), shedding(true), limiter);
+        MockHttpServletRequest request = post("10.0.2.1");
+
+        assertTrue(interceptor.preHandle(request, RESPONSE, null));
+        interceptor.afterConcurrentHandlingStarted(request, RESPONSE, null);
+        assertEquals(1, limiter.getInFlight());
+
+        // Повторный проход при ASYNC-диспетчеризации не тратит ни токен, ни второе разрешение
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, RESPONSE, null));
+        assertEquals(1, limiter.getInFlight());
+
+        interceptor.afterCompletion(request, RESPONSE, null, null);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void repeatedAfterCompletionReleasesPermitOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(shedding(true));
+        RateLimitInterceptor interceptor = interceptor(disabledRateLimit(), shedding(true), limiter);
+        MockHttpServletRequest first = post("10.0.3.1");
+        MockHttpServletRequest second = post("10.0.3.2");
+
+        assertTrue(interceptor.preHandle(first, RESPONSE, null));
+        assertTrue(interceptor.preHandle(second, RESPONSE, null));
+        interceptor.afterCompletion(first, RESPONSE, null, null);
+        interceptor.afterCompletion(first, RESPONSE, null, null);
+
+        // Второй вызов не забрал разрешение, которое держит другой запрос
+        assertEquals(1, limiter.getInFlight());
+        interceptor.afterCompletion(second, RESPONSE, null, null);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void importIsNotCountedByConcurrencyLimiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(shedding(true));
+        RateLimitInterceptor interceptor = interceptor(disabledRateLimit(), shedding(true), limiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/films/import");
+
+        assertTrue(interceptor.preHandle(request, RESPONSE, null));
+        assertEquals(0, limiter.getInFlight());
+        interceptor.afterCompletion(request, RESPONSE, null, null);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitBacksOffOnSlowResponsesAndGrowsOnFastOnes() {
+        LoadSheddingProperties properties = shedding(true);
+        properties.setMaxLimit(8);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.release(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(3, limiter.getLimit());
+
+        limiter.release(0);
+        assertEquals(4, limiter.getLimit());
+        limiter.release(0);
+        assertEquals(5, limiter.getLimit());
+
+        // При загрузке меньше половины лимита он не растёт
+        limiter.release(0);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    private static RateLimitInterceptor interceptor(RateLimitProperties rateLimit, LoadSheddingProperties shedding) {
+        return interceptor(rateLimit, shedding, new AdaptiveConcurrencyLimiter(shedding));
+    }
+
+    private static RateLimitInterceptor interceptor(RateLimitProperties rateLimit, LoadSheddingProperties shedding,
+                                                    AdaptiveConcurrencyLimiter limiter) {
+        return new RateLimitInterceptor(rateLimit, shedding, new TokenBucketRateLimiter(rateLimit), limiter);
+    }
+
+    private static RateLimitProperties rateLimit(double permitsPerSecond, int burst) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPermitsPerSecond(permitsPerSecond);
+        properties.setBurst(burst);
+        return properties;
+    }
+
+    private static RateLimitProperties disabledRateLimit() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+
+    private static LoadSheddingProperties shedding(boolean enabled) {
+        LoadSheddingProperties properties = new LoadSheddingProperties();
+        properties.setEnabled(enabled);
+        properties.setInitialLimit(4);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(4);
+        return properties;
+    }
+
+    private static MockHttpServletRequest post(String client) {
+        return request("POST", client);
+    }
+
+    private static MockHttpServletRequest request(String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/films");
+        request.setRemoteAddr(client);
+        return request;
+    }
+}
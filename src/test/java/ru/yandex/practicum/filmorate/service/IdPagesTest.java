@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdPagesTest {
+
+    @Test
+    void pagesMatchSortedSkipLimit() {
+        SplittableRandom random = new SplittableRandom(7);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(1 + random.nextLong(1_000_000));
+        }
+        for (int[] page : new int[][]{{0, 1}, {0, 100}, {37, 10}, {4_000, 500}, {4_990, 100}, {10_000, 10}}) {
+            int from = page[0];
+            int size = page[1];
+            List<Long> expected = ids.stream()
+                    .filter(id -> id % 3 != 0)
+                    .sorted()
+                    .skip(from)
+                    .limit(size)
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, IdPages.page(ids, from, size, id -> id % 3 != 0));
+        }
+    }
+
+    @Test
+    void hugePageDoesNotOverflow() {
+        assertEquals(List.of(1L, 2L, 3L), IdPages.page(Set.of(3L, 1L, 2L), 0, Integer.MAX_VALUE, id -> true));
+        assertEquals(List.of(), IdPages.page(Set.of(3L, 1L, 2L), Integer.MAX_VALUE, Integer.MAX_VALUE, id -> true));
+    }
+}
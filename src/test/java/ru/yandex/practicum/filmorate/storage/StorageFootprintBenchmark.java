@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.OffHeapFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.OffHeapUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Загружает N фильмов и N пользователей (по 3 лайка/друга) в выбранное хранилище и печатает
+ * занятую кучу после GC, объём direct-памяти, число и время сборок, а также длительность полного GC.
+ * Запуск: java -Xmx8g -XX:MaxDirectMemorySize=8g -cp target/classes:target/test-classes:<зависимости>
+ * ru.yandex.practicum.filmorate.storage.StorageFootprintBenchmark [memory|offheap] [записей]
+ */
+public class StorageFootprintBenchmark {
+
+    public static void main(String[] args) {
+        String type = args.length > 0 ? args[0] : "offheap";
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+
+        ChangeFeed changeFeed = new ChangeFeed(new ChangeFeedProperties());
+        FilmStorage films = type.equals("memory")
+                ? new InMemoryFilmStorage(changeFeed)
+                : new OffHeapFilmStorage(changeFeed);
+        UserStorage users = type.equals("memory")
+                ? new InMemoryUserStorage(changeFeed)
+                : new OffHeapUserStorage(changeFeed);
+
+        long started = System.nanoTime();
+        for (int i = 1; i <= records; i++) {
+            films.addFilm(Film.builder()
+                    .name("Film " + i)
+                    .description("Description of film number " + i)
+                    .releaseDate(LocalDate.of(1950, 1, 1).plusDays(i % 25_000))
+                    .duration(60 + i % 120)
+                    .likes(Set.of((long) i, (long) i + 1, (long) i + 2))
+                    .build());
+            users.addUser(User.builder()
+                    .email("user" + i + "@example.com")
+                    .login("user" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(1970, 1, 1).plusDays(i % 15_000))
+                    .friends(Set.of((long) i + 1, (long) i + 2, (long) i + 3))
+                    .build());
+            if (i % 1_000_000 == 0) {
+                System.out.printf("загружено %,d%n", i);
+            }
+        }
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+
+        long gcPauseMillis = fullGc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += gc.getCollectionCount();
+            gcMillis += gc.getCollectionTime();
+        }
+
+        System.out.printf("хранилище %s, записей %,d: загрузка %,d мс%n", type, records, loadMillis);
+        System.out.printf("куча после GC: %,d МБ, direct: %,d МБ%n", heap >> 20, direct >> 20);
+        System.out.printf("сборок: %d, суммарно %,d мс, полный GC: %,d мс%n", gcCount, gcMillis, gcPauseMillis);
+        System.out.printf("проверка: фильм %d — %s, пользователь %d — %s%n", records,
+                films.getFilmById((long) records).map(Film::getName).orElse("нет"),
+                records, users.getUserById((long) records).getLogin());
+    }
+
+    private static long fullGc() {
+        long started = System.nanoTime();
+        System.gc();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
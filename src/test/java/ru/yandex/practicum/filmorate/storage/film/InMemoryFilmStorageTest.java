@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryFilmStorageTest {
+    private static final int FILMS = 20_000;
+
+    private final ChangeFeed changeFeed = new ChangeFeed(properties());
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage(changeFeed);
+
+    @Test
+    void eventIsPublishedOnlyAfterChangeIsVisible() {
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < FILMS; i++) {
+                Film added = storage.addFilm(Film.builder()
+                        .name("Film " + i)
+                        .releaseDate(LocalDate.of(2000, 1, 1))
+                        .duration(90)
+                        .build());
+                storage.updateFilm(added.toBuilder().build());
+            }
+        });
+        long next = 1;
+        while (next <= 2L * FILMS) {
+            if (writer.isCompletedExceptionally()) {
+                writer.join();
+            }
+            for (ChangeEvent event : changeFeed.read(next, 256)) {
+                Film film = storage.getFilmById(event.getEntityId()).orElse(null);
+                assertNotNull(film, "событие " + event.getSequence() + " опередило фильм");
+                if (event.getType() == ChangeType.FILM_UPDATED) {
+                    assertEquals(2L, film.getVersion());
+                }
+                next = event.getSequence() + 1;
+            }
+        }
+        writer.join();
+    }
+
+    // Буфер вмещает все события: читатель не должен отстать настолько, что их затрёт
+    private static ChangeFeedProperties properties() {
+        ChangeFeedProperties properties = new ChangeFeedProperties();
+        properties.setCapacity(4 * FILMS);
+        return properties;
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.model.ChangeType;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapFilmStorageTest {
+    private final ChangeFeed changeFeed = new ChangeFeed(new ChangeFeedProperties());
+    private final OffHeapFilmStorage storage = new OffHeapFilmStorage(changeFeed);
+
+    @Test
+    void addReadUpdateDelete() {
+        Film added = storage.addFilm(film("Transformers").toBuilder().likes(Set.of(1L, 2L)).build());
+        Film stored = storage.getFilmById(added.getId()).orElseThrow();
+
+        assertEquals(1L, stored.getVersion());
+        assertEquals("Transformers", stored.getName());
+        assertEquals("Роботы-машины", stored.getDescription());
+        assertEquals(95, stored.getDuration());
+        assertEquals(Set.of(1L, 2L), stored.getLikes());
+
+        stored.setDescription(null);
+        Film updated = storage.updateFilm(stored);
+        assertEquals(2L, updated.getVersion());
+        assertNull(storage.getFilmById(added.getId()).orElseThrow().getDescription());
+        assertEquals(Set.of(1L, 2L), storage.getFilmById(added.getId()).orElseThrow().getLikes());
+        assertTrue(storage.existsFilm(added.getId()));
+        assertFalse(storage.existsFilm(added.getId() + 1));
+
+        storage.deleteFilm(added.getId());
+        assertFalse(storage.existsFilm(added.getId()));
+        assertTrue(storage.getFilmById(added.getId()).isEmpty());
+        assertTrue(storage.getAllFilms().isEmpty());
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        Film added = storage.addFilm(film("Transformers"));
+        Film first = storage.getFilmById(added.getId()).orElseThrow();
+        Film second = storage.getFilmById(added.getId()).orElseThrow();
+        storage.updateFilm(first);
+
+        assertThrows(VersionConflictException.class, () -> storage.updateFilm(second));
+        Film missing = film("Missing").toBuilder().id(999L).version(1L).build();
+        assertThrows(FilmNotFoundException.class, () -> storage.updateFilm(missing));
+    }
+
+    @Test
+    void likesGrowAndShrink() {
+        Film added = storage.addFilm(film("Transformers"));
+        for (long userId = 1; userId <= 100; userId++) {
+            assertTrue(storage.addLike(added.getId(), userId));
+        }
+        assertFalse(storage.addLike(added.getId(), 1L));
+        for (long userId = 1; userId <= 100; userId += 2) {
+            assertTrue(storage.removeLike(added.getId(), userId));
+        }
+
+        Set<Long> likes = storage.getFilmById(added.getId()).orElseThrow().getLikes();
+        assertEquals(50, likes.size());
+        assertTrue(likes.contains(2L));
+        assertFalse(likes.contains(1L));
+        assertThrows(FilmNotFoundException.class, () -> storage.addLike(999L, 1L));
+    }
+
+    @Test
+    void likeCountsSkipDeletedFilms() {
+        Film liked = storage.addFilm(film("Transformers").toBuilder().likes(Set.of(1L, 2L, 3L)).build());
+        Film deleted = storage.addFilm(film("Deleted"));
+        Film unliked = storage.addFilm(film("Unliked"));
+        storage.deleteFilm(deleted.getId());
+
+        Map<Long, Integer> counts = new HashMap<>();
+        storage.forEachLikeCount(counts::put);
+        assertEquals(Map.of(liked.getId(), 3, unliked.getId(), 0), counts);
+    }
+
+    @Test
+    void everyEffectiveMutationIsPublishedInOrder() {
+        Film added = storage.addFilm(film("Transformers"));
+        storage.addLike(added.getId(), 7L);
+        storage.addLike(added.getId(), 7L);
+        storage.removeLike(added.getId(), 7L);
+        storage.deleteFilm(added.getId());
+
+        List<ChangeEvent> events = changeFeed.read(1, 10);
+        assertEquals(List.of(ChangeType.FILM_CREATED, ChangeType.LIKE_ADDED, ChangeType.LIKE_REMOVED,
+                ChangeType.FILM_DELETED), events.stream().map(ChangeEvent::getType).toList());
+        assertEquals(7L, events.get(1).getRelatedId());
+        assertEquals(4L, changeFeed.getLastSequence());
+    }
+
+    @Test
+    void deleteReturnsFinalLikesAndRejectsLaterOnes() {
+        Film added = storage.addFilm(film("Transformers"));
+        storage.addLike(added.getId(), 3L);
+
+        assertEquals(Set.of(3L), storage.deleteFilm(added.getId()).orElseThrow().getLikes());
+        assertTrue(storage.deleteFilm(added.getId()).isEmpty());
+        assertThrows(FilmNotFoundException.class, () -> storage.addLike(added.getId(), 4L));
+    }
+
+    @Test
+    void allFilmsViewSkipsDeletedAndSupportsRemove() {
+        Film first = storage.addFilm(film("First"));
+        Film second = storage.addFilm(film("Second"));
+        Film third = storage.addFilm(film("Third"));
+        storage.deleteFilm(second.getId());
+
+        Iterator<Film> films = storage.getAllFilms().iterator();
+        assertEquals(first.getId(), films.next().getId());
+        films.remove();
+        assertEquals(third.getId(), films.next().getId());
+        assertFalse(films.hasNext());
+        assertEquals(1, storage.getAllFilms().size());
+    }
+
+    @Test
+    void nonPositiveLikeIdIsRejected() {
+        Film invalid = film("Transformers").toBuilder().likes(Set.of(-1L)).build();
+
+        assertThrows(ValidationException.class, () -> storage.addFilm(invalid));
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Роботы-машины")
+                .releaseDate(LocalDate.of(2007, 3, 10))
+                .duration(95)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Конкурентные обновления с проверкой версии: писатели обновляют небольшой набор "горячих" фильмов
+ * циклом read-copy-CAS, а параллельно ставятся лайки. Печатает пропускную способность, долю повторов
+ * и проверяет, что ни одно обновление и ни один лайк не потерян.
+ * Запуск: java -cp target/classes:target/test-classes:<зависимости>
+ * ru.yandex.practicum.filmorate.storage.film.OptimisticUpdateBenchmark [потоков] [фильмов] [секунд]
+ */
+public class OptimisticUpdateBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int hotFilms = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 3;
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(threads, hotFilms, seconds);
+        }
+    }
+
+    private static void run(int threads, int hotFilms, long seconds) throws InterruptedException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(new ChangeFeed(new ChangeFeedProperties()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < hotFilms; i++) {
+            ids.add(storage.addFilm(Film.builder()
+                    .name("Film " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .build()).getId());
+        }
+
+        LongAdder updates = new LongAdder();
+        LongAdder retries = new LongAdder();
+        LongAdder likes = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            boolean liker = t % 2 == 1;
+            long userBase = (long) t << 40;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long nextUser = userBase;
+                while (System.nanoTime() < deadline) {
+                    Long id = ids.get(random.nextInt(ids.size()));
+                    if (liker) {
+                        if (storage.addLike(id, nextUser++)) {
+                            likes.increment();
+                        }
+                        continue;
+                    }
+                    while (true) {
+                        Film current = storage.getFilmById(id).orElseThrow();
+                        Film copy = current.toBuilder().description("rev " + random.nextInt()).build();
+                        try {
+                            storage.updateFilm(copy);
+                            updates.increment();
+                            break;
+                        } catch (VersionConflictException e) {
+                            retries.increment();
+                        }
+                    }
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+
+        long storedVersions = 0;
+        long storedLikes = 0;
+        for (Long id : ids) {
+            Film film = storage.getFilmById(id).orElseThrow();
+            storedVersions += film.getVersion() - 1;
+            storedLikes += film.getLikes().size();
+        }
+        System.out.printf("потоков %2d: %,10d обновлений/с, повторов %5.1f%%, %,10d лайков/с, потеряно обновлений %d, "
+                        + "потеряно лайков %d%n",
+                threads, updates.sum() / seconds,
+                100.0 * retries.sum() / Math.max(1, updates.sum() + retries.sum()),
+                likes.sum() / seconds, updates.sum() - storedVersions, likes.sum() - storedLikes);
+    }
+}
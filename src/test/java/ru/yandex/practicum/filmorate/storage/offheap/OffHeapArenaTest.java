@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapArenaTest {
+    private final OffHeapArena arena = new OffHeapArena(1024);
+
+    @Test
+    void freedBlockIsReusedForSameSizeClass() {
+        long first = arena.allocate(100);
+        arena.free(first, 100);
+
+        assertEquals(first, arena.allocate(120));
+        assertEquals(128, arena.getUsedBytes());
+    }
+
+    @Test
+    void freedBlockIsNotReusedForOtherSizeClass() {
+        long small = arena.allocate(100);
+        arena.free(small, 100);
+
+        long large = arena.allocate(200);
+        assertNotEquals(small, large);
+        assertEquals(small, arena.allocate(64 + 1));
+        assertEquals(256 + 128, arena.getUsedBytes());
+    }
+
+    @Test
+    void valuesRoundTripAndAddressesAreNonZero() {
+        long address = arena.allocate(32);
+        arena.putLong(address, 0, Long.MIN_VALUE);
+        arena.putInt(address, 8, 42);
+        arena.putBytes(address, 12, new byte[]{1, 2, 3});
+
+        byte[] bytes = new byte[3];
+        arena.getBytes(address, 12, bytes);
+        assertNotEquals(0, address);
+        assertEquals(Long.MIN_VALUE, arena.getLong(address, 0));
+        assertEquals(42, arena.getInt(address, 8));
+        assertArrayEquals(new byte[]{1, 2, 3}, bytes);
+    }
+
+    @Test
+    void blockLargerThanChunkGetsOwnChunk() {
+        arena.allocate(16);
+        long large = arena.allocate(4096);
+        arena.putLong(large, 4096 - Long.BYTES, 7);
+
+        assertEquals(7, arena.getLong(large, 4096 - Long.BYTES));
+        assertEquals(1024 + 4096, arena.getReservedBytes());
+    }
+}
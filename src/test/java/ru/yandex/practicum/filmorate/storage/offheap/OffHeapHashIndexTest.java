@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapHashIndexTest {
+    private final OffHeapHashIndex index = new OffHeapHashIndex(16);
+
+    @Test
+    void collidingKeysDoNotOverwriteEachOther() {
+        index.put(42, 1);
+        index.put(42, 2);
+
+        assertEquals(1, index.find(42, id -> id == 1));
+        assertEquals(2, index.find(42, id -> id == 2));
+        assertEquals(0, index.find(42, id -> false));
+
+        assertTrue(index.remove(42, 1));
+        assertEquals(0, index.find(42, id -> id == 1));
+        assertEquals(2, index.find(42, id -> id == 2));
+    }
+
+    @Test
+    void putIsIdempotentAndRemoveNeedsExactPair() {
+        index.put(7, 1);
+        index.put(7, 1);
+
+        assertEquals(1, index.size());
+        assertFalse(index.remove(7, 2));
+        assertFalse(index.remove(8, 1));
+        assertTrue(index.remove(7, 1));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void growAndRemoveKeepChainsReachable() {
+        for (long id = 1; id <= 5000; id++) {
+            index.put(id % 97, id);
+        }
+        for (long id = 2; id <= 5000; id += 2) {
+            assertTrue(index.remove(id % 97, id));
+        }
+
+        assertEquals(2500, index.size());
+        for (long id = 1; id <= 5000; id++) {
+            long expected = id % 2 == 1 ? id : 0;
+            long wanted = id;
+            assertEquals(expected, index.find(id % 97, candidate -> candidate == wanted));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapLongSetTest {
+    private final OffHeapArena arena = new OffHeapArena(1 << 16);
+
+    @Test
+    void addIgnoresDuplicatesAndRejectsNonPositive() {
+        long set = OffHeapLongSet.create(arena, 0);
+        set = OffHeapLongSet.add(arena, set, 5);
+        set = OffHeapLongSet.add(arena, set, 5);
+
+        assertEquals(1, OffHeapLongSet.size(arena, set));
+        assertTrue(OffHeapLongSet.contains(arena, set, 5));
+        assertFalse(OffHeapLongSet.contains(arena, set, 6));
+        long created = set;
+        assertThrows(IllegalArgumentException.class, () -> OffHeapLongSet.add(arena, created, 0));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapLongSet.add(arena, created, -1));
+    }
+
+    @Test
+    void growKeepsAllValues() {
+        long set = OffHeapLongSet.create(arena, 0);
+        long initial = set;
+        for (long value = 1; value <= 1000; value++) {
+            set = OffHeapLongSet.add(arena, set, value);
+        }
+
+        assertNotEquals(initial, set);
+        assertEquals(1000, OffHeapLongSet.size(arena, set));
+        for (long value = 1; value <= 1000; value++) {
+            assertTrue(OffHeapLongSet.contains(arena, set, value));
+        }
+        assertFalse(OffHeapLongSet.contains(arena, set, 1001));
+    }
+
+    @Test
+    void removeShiftsCollidingValuesBack() {
+        long set = OffHeapLongSet.create(arena, 4);
+        long[] chain = sameHomeSlot(8, 3, 0);
+        for (long value : chain) {
+            set = OffHeapLongSet.add(arena, set, value);
+        }
+
+        assertTrue(OffHeapLongSet.remove(arena, set, chain[0]));
+        assertFalse(OffHeapLongSet.contains(arena, set, chain[0]));
+        assertTrue(OffHeapLongSet.contains(arena, set, chain[1]));
+        assertTrue(OffHeapLongSet.contains(arena, set, chain[2]));
+
+        assertTrue(OffHeapLongSet.remove(arena, set, chain[1]));
+        assertTrue(OffHeapLongSet.contains(arena, set, chain[2]));
+        assertFalse(OffHeapLongSet.remove(arena, set, chain[1]));
+        assertEquals(1, OffHeapLongSet.size(arena, set));
+    }
+
+    @Test
+    void removeShiftsBackAcrossTableEnd() {
+        long set = OffHeapLongSet.create(arena, 4);
+        long[] chain = sameHomeSlot(8, 3, 7);
+        for (long value : chain) {
+            set = OffHeapLongSet.add(arena, set, value);
+        }
+
+        assertTrue(OffHeapLongSet.remove(arena, set, chain[0]));
+        assertTrue(OffHeapLongSet.contains(arena, set, chain[1]));
+        assertTrue(OffHeapLongSet.contains(arena, set, chain[2]));
+        assertEquals(2, OffHeapLongSet.size(arena, set));
+    }
+
+    @Test
+    void randomOperationsMatchHashSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        long set = OffHeapLongSet.create(arena, 0);
+        for (int i = 0; i < 20_000; i++) {
+            long value = 1 + random.nextInt(500);
+            if (random.nextBoolean()) {
+                int before = OffHeapLongSet.size(arena, set);
+                set = OffHeapLongSet.add(arena, set, value);
+                assertEquals(expected.add(value), OffHeapLongSet.size(arena, set) > before);
+            } else {
+                assertEquals(expected.remove(value), OffHeapLongSet.remove(arena, set, value));
+            }
+        }
+        assertEquals(expected, OffHeapLongSet.toSet(arena, set));
+        OffHeapLongSet.free(arena, set);
+    }
+
+    // Повторяет хеш OffHeapLongSet, чтобы собрать цепочку значений с одним "домашним" слотом
+    private static long[] sameHomeSlot(int capacity, int count, int slot) {
+        long[] values = new long[count];
+        int found = 0;
+        for (long value = 1; found < count; value++) {
+            int home = (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & (capacity - 1);
+            if (home == slot) {
+                values[found++] = value;
+            }
+        }
+        return values;
+    }
+}
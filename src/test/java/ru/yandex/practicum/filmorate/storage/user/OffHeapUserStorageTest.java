@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeed;
+import ru.yandex.practicum.filmorate.changefeed.ChangeFeedProperties;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUserStorageTest {
+    private final OffHeapUserStorage storage = new OffHeapUserStorage(new ChangeFeed(new ChangeFeedProperties()));
+
+    @Test
+    void addReadUpdateDelete() {
+        User added = storage.addUser(user("ivan@email.com", "ivan"));
+        User stored = storage.getUserById(added.getId());
+
+        assertEquals(1L, stored.getVersion());
+        assertEquals("ivan@email.com", stored.getEmail());
+        assertEquals("ivan", stored.getName());
+        assertEquals(LocalDate.of(1997, 10, 4), stored.getBirthday());
+
+        stored.setName("Иван");
+        User updated = storage.updateUser(stored);
+        assertEquals(2L, updated.getVersion());
+        assertEquals("Иван", storage.getUserById(added.getId()).getName());
+        assertEquals(1, storage.getAllUsers().size());
+        assertTrue(storage.existsUser(added.getId()));
+        assertFalse(storage.existsUser(added.getId() + 1));
+
+        storage.deleteUser(added.getId());
+        assertFalse(storage.existsUser(added.getId()));
+        assertThrows(NotFoundException.class, () -> storage.getUserById(added.getId()));
+        assertTrue(storage.getAllUsers().isEmpty());
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        User added = storage.addUser(user("ivan@email.com", "ivan"));
+        User first = storage.getUserById(added.getId());
+        User second = storage.getUserById(added.getId());
+        storage.updateUser(first);
+
+        assertThrows(VersionConflictException.class, () -> storage.updateUser(second));
+        User missing = user("nobody@email.com", "nobody").toBuilder().id(999L).version(1L).build();
+        assertThrows(UserNotFoundException.class, () -> storage.updateUser(missing));
+    }
+
+    @Test
+    void emailAndLoginLookupsIgnoreCase() {
+        User added = storage.addUser(user("Ivan@Email.com", "IvanLogin"));
+
+        assertEquals(Optional.of(added.getId()), storage.findIdByEmail("ivan@email.com"));
+        assertEquals(Optional.of(added.getId()), storage.findIdByLogin("IVANLOGIN"));
+        assertTrue(storage.findIdByEmail("other@email.com").isEmpty());
+        assertTrue(storage.findIdByLogin(null).isEmpty());
+    }
+
+    @Test
+    void updateAndDeleteMoveIndexedKeys() {
+        User added = storage.addUser(user("ivan@email.com", "ivan"));
+        User changed = storage.getUserById(added.getId());
+        changed.setEmail("new@email.com");
+        storage.updateUser(changed);
+
+        assertTrue(storage.findIdByEmail("ivan@email.com").isEmpty());
+        assertEquals(Optional.of(added.getId()), storage.findIdByEmail("new@email.com"));
+        assertEquals(Optional.of(added.getId()), storage.findIdByLogin("ivan"));
+
+        storage.deleteUser(added.getId());
+        assertTrue(storage.findIdByEmail("new@email.com").isEmpty());
+        assertTrue(storage.findIdByLogin("ivan").isEmpty());
+    }
+
+    @Test
+    void friendsAreAddedOnceAndRemoved() {
+        User first = storage.addUser(user("first@email.com", "first"));
+        User second = storage.addUser(user("second@email.com", "second"));
+
+        assertTrue(storage.addFriend(first.getId(), second.getId()));
+        assertFalse(storage.addFriend(first.getId(), second.getId()));
+        assertEquals(Set.of(second.getId()), storage.getUserById(first.getId()).getFriends());
+        assertTrue(storage.removeFriend(first.getId(), second.getId()));
+        assertFalse(storage.removeFriend(first.getId(), second.getId()));
+        assertThrows(NotFoundException.class, () -> storage.addFriend(999L, first.getId()));
+    }
+
+    @Test
+    void friendCountsSkipDeletedUsers() {
+        User first = storage.addUser(user("first@email.com", "first"));
+        User deleted = storage.addUser(user("deleted@email.com", "deleted"));
+        User second = storage.addUser(user("second@email.com", "second"));
+        storage.addFriend(first.getId(), second.getId());
+        storage.deleteUser(deleted.getId());
+
+        Map<Long, Integer> counts = new HashMap<>();
+        storage.forEachFriendCount(counts::put);
+        assertEquals(Map.of(first.getId(), 1, second.getId(), 0), counts);
+    }
+
+    @Test
+    void nonPositiveFriendIdIsRejected() {
+        User invalid = user("ivan@email.com", "ivan").toBuilder().friends(Set.of(0L)).build();
+
+        assertThrows(ValidationException.class, () -> storage.addUser(invalid));
+        assertTrue(storage.findIdByEmail("ivan@email.com").isEmpty());
+    }
+
+    private static User user(String email, String login) {
+        return User.builder()
+                .email(email)
+                .login(login)
+                .birthday(LocalDate.of(1997, 10, 4))
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import ru.yandex.practicum.filmorate.exception.DomainValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.ValidationReport;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Проверяет N пользователей, среди которых каждый тысячный повторяет email соседа, а каждый 777-й — логин,
+ * и печатает прогресс раз в полсекунды и итоговый отчёт.
+ * Запуск: java -Xmx8g -cp target/classes:target/test-classes:<зависимости>
+ * ru.yandex.practicum.filmorate.validation.UserValidationBenchmark [записей] [beans|none]
+ */
+public class UserValidationBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        boolean beans = args.length < 2 || args[1].equals("beans");
+
+        List<User> users = new ArrayList<>(records);
+        for (int i = 1; i <= records; i++) {
+            users.add(User.builder()
+                    .id((long) i)
+                    .version(1L)
+                    .email((i % 1000 == 0 ? "User" + (i - 1) : "user" + i) + "@example.com")
+                    .login("login" + (i % 777 == 0 ? i - 3 : i))
+                    .name("User " + i)
+                    .birthday(LocalDate.of(1970, 1, 1).plusDays(i % 15_000))
+                    .build());
+        }
+        System.out.printf("подготовлено %,d пользователей%n", records);
+
+        Consumer<User> rules = beans ? beanRules() : user -> { };
+        ValidationProperties properties = new ValidationProperties();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        UserValidationJob job = new UserValidationJob(1, users, rules, properties, pool);
+        pool.execute(job::run);
+        while (job.isRunning()) {
+            Thread.sleep(500);
+            ValidationReport report = job.report();
+            System.out.printf("%5.1f%%  проверено %,d, разделов %d/%d%n", report.getProgress() * 100,
+                    report.getValidated(), report.getPartitionsChecked(), report.getPartitions());
+        }
+        pool.shutdown();
+
+        ValidationReport report = job.report();
+        System.out.printf("%s за %,d мс: некорректных %d, дубликатов email %d (ожидалось %d), "
+                        + "логинов %d (ожидалось %d)%n",
+                report.getStatus(), report.getElapsedMillis(), report.getInvalid(),
+                report.getEmailConflicts(), records / 1000, report.getLoginConflicts(), records / 777);
+    }
+
+    private static Consumer<User> beanRules() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        return user -> {
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                throw new DomainValidationException(violations.iterator().next().getMessage());
+            }
+        };
+    }
+}